@@ -0,0 +1,46 @@
+package com.scraper.config;
+
+import com.scraper.entity.ProductDetails;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves product_details_seq past the IDs already in product_details. Tables created while the ID was an
+ * identity column keep their rows, and a freshly created sequence would otherwise hand out those IDs again.
+ * It also moves a fresh sequence past its first block: Hibernate's pooled optimizer treats a first nextval
+ * of 1 specially and calls nextval twice, while ProductIdAllocator and ProductBulkLoader read every value
+ * as the end of a block, so their blocks could overlap.
+ * Depending on the EntityManagerFactory makes this run after Hibernate has created the sequence.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIdSequence {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void alignWithExistingIds() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product_details", Long.class);
+            Map<String, Object> state = jdbcTemplate.queryForMap("SELECT last_value, is_called FROM product_details_seq");
+            long lastValue = ((Number) state.get("last_value")).longValue();
+            boolean called = Boolean.TRUE.equals(state.get("is_called"));
+            // The next nextval returns target + ID_ALLOCATION_SIZE, never 1, and its block starts above maxId
+            long target = Math.max(maxId != null ? maxId : 0, ProductDetails.ID_ALLOCATION_SIZE);
+            if (!called || lastValue < target) {
+                jdbcTemplate.queryForObject("SELECT setval('product_details_seq', ?)", Long.class, target);
+                log.info("Moved product_details_seq from {} to {}", lastValue, target);
+            }
+        } catch (Exception e) {
+            log.warn("Could not align product_details_seq with existing IDs: {}", e.getMessage());
+        }
+    }
+}
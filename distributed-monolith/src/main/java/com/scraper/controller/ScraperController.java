@@ -1,19 +1,37 @@
 package com.scraper.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.PageCapture;
 import com.scraper.dto.ProductInfo;
 import com.scraper.dto.ProductResponse;
+import com.scraper.repository.AttributeFilter;
+import com.scraper.repository.ProductField;
+import com.scraper.service.CardCache;
+import com.scraper.service.ProductBackfillJob;
+import com.scraper.service.ProductCache;
 import com.scraper.service.ProductService;
+import com.scraper.service.ProductWriteBuffer;
+import com.scraper.service.UrlFilter;
 import com.scraper.service.WebScraperService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/scraper")
@@ -24,38 +42,41 @@ public class ScraperController {
     
     private final WebScraperService scraperService;
     private final ProductService productService;
+    private final ProductBackfillJob backfillJob;
+    private final UrlFilter urlFilter;
+    private final ProductWriteBuffer writeBuffer;
+    private final ProductCache productCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${scraper.products.page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${scraper.products.max-page-size:1000}")
+    private int maxPageSize;
     
     @PostMapping("/start")
     @Operation(summary = "Start scraping", description = "Extract products directly from 999.md listing pages and save to database")
     public ResponseEntity<Map<String, Object>> startScraping(
             @RequestParam(defaultValue = "https://www.ebay.com/sch/i.html?_nkw=cell+phones") String startingUrl,
-            @RequestParam(defaultValue = "5") int maxPages) {
+            @RequestParam(defaultValue = "5") int maxPages,
+            @RequestParam(defaultValue = "false") boolean concurrent) {
         
-        log.info("Starting scraping from listing page: {} with max pages: {}", startingUrl, maxPages);
+        log.info("Starting scraping from listing page: {} with max pages: {} (concurrent: {})", startingUrl, maxPages, concurrent);
         
         // Extract products directly from listing pages (more efficient - no need to visit individual pages)
-        Map<String, ProductInfo> products = scraperService.scrapeProductsFromListing(startingUrl, maxPages);
+        Map<String, ProductInfo> products = scraperService.scrapeProductsFromListing(startingUrl, maxPages, concurrent);
         
         log.info("Found {} products to save", products.size());
         
-        // Save products asynchronously to database
-        CompletableFuture<?>[] futures = products.entrySet().stream()
-                .map(entry -> {
-                    String url = entry.getKey();
-                    ProductInfo info = entry.getValue();
-                    return CompletableFuture.runAsync(() -> {
-                        try {
-                            productService.saveProduct(url, info);
-                            log.debug("Saved product: {} - {}", url, info.getTitle());
-                        } catch (Exception e) {
-                            log.error("Error saving product {}: {}", url, e.getMessage());
-                        }
-                    });
-                })
-                .toArray(CompletableFuture[]::new);
-        
-        CompletableFuture.allOf(futures).thenRun(() -> 
-            log.info("All {} products saved to database", products.size()));
+        // Hand products to the write-behind buffer; this only blocks while the buffer is full
+        try {
+            writeBuffer.enqueueAll(products);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                    "error", "Interrupted while queueing products for saving",
+                    "productsFound", products.size()));
+        }
         
         return ResponseEntity.ok(Map.of(
                 "message", "Scraping completed and products are being saved",
@@ -66,37 +87,152 @@ public class ScraperController {
     }
     
     @GetMapping("/products")
-    @Operation(summary = "Get all products", description = "Retrieve all scraped products from database")
-    public ResponseEntity<String> getAllProducts() {
-        List<ProductResponse> products = productService.getAllProducts();
+    @Operation(summary = "Get products", description = "One page of scraped products, oldest first, as a JSON array (format=json) or newline-delimited JSON (format=ndjson); pass the X-Next-Cursor header of a response as cursor to get the next page. fields=summary or a comma-separated field list limits the columns read and returned; attr.<name>=<value> (e.g. attr.Brand=Apple, repeatable) keeps only products with that attribute, looked up through GIN indexes")
+    public ResponseEntity<StreamingResponseBody> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "json") String format,
+            @RequestParam(required = false) String fields,
+            @RequestParam Map<String, String> params) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize || !isStreamFormat(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductService.Page page;
         try {
-            // Simple manual JSON conversion to avoid Jackson issues
-            StringBuilder json = new StringBuilder("[");
-            for (int i = 0; i < products.size(); i++) {
-                ProductResponse p = products.get(i);
-                json.append("{");
-                json.append("\"id\":").append(p.getId()).append(",");
-                json.append("\"url\":\"").append(p.getUrl()).append("\",");
-                json.append("\"title\":\"").append(p.getTitle()).append("\",");
-                json.append("\"price\":\"").append(p.getPrice() != null ? p.getPrice() : "").append("\",");
-                json.append("\"adInfo\":\"").append(p.getAdInfo() != null ? p.getAdInfo() : "{}").append("\",");
-                json.append("\"generalInfo\":\"").append(p.getGeneralInfo() != null ? p.getGeneralInfo() : "{}").append("\",");
-                json.append("\"features\":\"").append(p.getFeatures() != null ? p.getFeatures() : "{}").append("\"");
-                json.append("}");
-                if (i < products.size() - 1) json.append(",");
+            page = productService.getProducts(cursor, pageSize, ProductField.parse(fields), AttributeFilter.parse(params));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(streamMediaType(format));
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(streamProducts(format, sink -> page.products().forEach(sink)));
+    }
+
+    @GetMapping("/products/export")
+    @Operation(summary = "Export all products", description = "Every product, streamed from a database cursor as newline-delimited JSON (format=ndjson) or one JSON array (format=json); fields= and attr.* filters work as for /products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String fields,
+            @RequestParam Map<String, String> params) {
+        Set<ProductField> requested;
+        AttributeFilter filter;
+        try {
+            requested = ProductField.parse(fields);
+            filter = AttributeFilter.parse(params);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!isStreamFormat(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok().contentType(streamMediaType(format))
+                .body(streamProducts(format, sink -> productService.exportProducts(requested, filter, sink)));
+    }
+
+    private static boolean isStreamFormat(String format) {
+        return "json".equals(format) || "ndjson".equals(format);
+    }
+
+    private static MediaType streamMediaType(String format) {
+        return "ndjson".equals(format) ? MediaType.parseMediaType("application/x-ndjson") : MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Write each product (its requested fields) straight to the response through one JsonGenerator, as a JSON array or one object
+     * per line; nothing but the generator's buffer is held, so the first rows go out while later ones are read
+     */
+    private StreamingResponseBody streamProducts(String format, Consumer<Consumer<Map<String, Object>>> source) {
+        boolean ndjson = "ndjson".equals(format);
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // The container owns the response stream
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                if (!ndjson) generator.writeStartArray();
+                source.accept(product -> {
+                    try {
+                        generator.writeObject(product);
+                        if (ndjson) generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        // Client went away; abort the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) generator.writeEndArray();
             }
-            json.append("]");
-            return ResponseEntity.ok(json.toString());
-        } catch (Exception e) {
-            return ResponseEntity.ok("[]");
+        };
+    }
+    
+    @GetMapping("/products/by-price")
+    @Operation(summary = "Find products by price", description = "Products in one currency within an optional price range (major units), ordered by price")
+    public ResponseEntity<List<ProductResponse>> getProductsByPrice(
+            @RequestParam String currency,
+            @RequestParam(required = false) BigDecimal min,
+            @RequestParam(required = false) BigDecimal max,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > 1000 || currency.length() != 3) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(productService.findByPrice(currency, min, max, !"desc".equalsIgnoreCase(order), limit));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            // Unknown currency code or a bound outside the column range
+            return ResponseEntity.badRequest().build();
         }
     }
+
+    @PostMapping("/products/backfill")
+    @Operation(summary = "Backfill normalized columns", description = "Parse price, condition and brand of rows saved before these columns existed")
+    public ResponseEntity<Map<String, Object>> backfillProducts() {
+        return ResponseEntity.ok(Map.of("rowsUpdated", backfillJob.run()));
+    }
     
     @GetMapping("/extract/{url}")
-    @Operation(summary = "Extract product info", description = "Extract product information from a single URL")
+    @Operation(summary = "Extract product info", description = "Product information for a single URL; a stored product verified within scraper.product-cache.freshness is returned without fetching the page")
     public ResponseEntity<ProductInfo> extractProductInfo(@PathVariable String url) {
         String fullUrl = url.startsWith("http") ? url : "https://999.md" + url;
-        return ResponseEntity.ok(scraperService.extractProductInfo(fullUrl));
+        return ResponseEntity.ok(productService.extractProduct(fullUrl));
+    }
+
+    @GetMapping("/products/{id}")
+    @Operation(summary = "Get product", description = "One stored product by ID, served from the product cache when present")
+    public ResponseEntity<ProductResponse> getProduct(@PathVariable long id) {
+        return productService.getProduct(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/product-cache")
+    @Operation(summary = "Product cache statistics", description = "Hits, misses, evictions and size of the in-process product cache")
+    public ResponseEntity<ProductCache.Stats> productCacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    @GetMapping("/card-cache")
+    @Operation(summary = "Card cache statistics", description = "Hits, misses and hit ratio of the listing card cache since startup")
+    public ResponseEntity<CardCache.Stats> cardCacheStats() {
+        return ResponseEntity.ok(scraperService.cardCacheStats());
+    }
+
+    @GetMapping("/url-filter")
+    @Operation(summary = "URL filter statistics", description = "Size and hit/false-positive counts of the in-memory filter of stored product URLs")
+    public ResponseEntity<UrlFilter.Stats> urlFilterStats() {
+        return ResponseEntity.ok(urlFilter.stats());
+    }
+
+    @PostMapping("/capture")
+    @Operation(summary = "Capture listing page", description = "Run the diagnostic scans on a listing page and store the HTML and findings for offline analysis")
+    public ResponseEntity<PageCapture> capturePage(@RequestParam String url) {
+        try {
+            return ResponseEntity.ok(scraperService.capturePage(url));
+        } catch (IOException e) {
+            log.error("Error capturing page {}: {}", url, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
     }
 
     @PostMapping("/test-html")
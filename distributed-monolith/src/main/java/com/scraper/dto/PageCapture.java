@@ -0,0 +1,40 @@
+package com.scraper.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Evidence gathered by the listing diagnostics for one page, stored next to the raw HTML for offline analysis
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageCapture {
+    private String url;
+    private String capturedAt;
+    private int htmlLength;
+    private boolean adListContainerFound;
+    private int wrapperCount;
+    private int skeletonCount;
+    private int realWrapperCount;
+    private int dataIndexCount;
+    private int adPhotoClassCount;
+    private int dataIdCount;
+    private int dataAdidCount;
+    private int scriptCount;
+    private List<String> apiUrls;
+    private List<String> nextDataIds;
+    private List<String> productIds;
+    private int roOccurrences;
+    private String sampleWrapperHtml;
+    private List<String> suspectScripts;
+    private String htmlFile;
+    private String reportFile;
+}
@@ -15,6 +15,8 @@ public class ProductResponse {
     private String title;
     private String description;
     private String price;
+    private Long priceMinor;
+    private String priceCurrency;
     private String location;
     private String adInfo;
     private String generalInfo;
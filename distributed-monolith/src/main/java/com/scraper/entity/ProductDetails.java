@@ -11,15 +11,27 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_details")
+@Table(name = "product_details", indexes = {
+        // Serves price-range filters and price ordering within one currency
+        @Index(name = "idx_product_details_price", columnList = "price_currency, price_minor"),
+        @Index(name = "idx_product_details_condition", columnList = "item_condition"),
+        @Index(name = "idx_product_details_brand", columnList = "brand"),
+        // Keyset pagination and export order
+        @Index(name = "idx_product_details_created", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ProductDetails {
+
+    /** Increment of product_details_seq; each nextval reserves the block of IDs ending at the returned value */
+    public static final int ID_ALLOCATION_SIZE = 50;
     
+    /** Pooled sequence so Hibernate can batch inserts; IDs are handed out 50 at a time per JVM */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_details_seq")
+    @SequenceGenerator(name = "product_details_seq", sequenceName = "product_details_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "url", unique = true, nullable = false, columnDefinition = "TEXT")
@@ -33,6 +45,22 @@ public class ProductDetails {
     
     @Column(name = "price")
     private String price;
+
+    /** Price normalized from the text above, in minor units of priceCurrency (e.g. cents) */
+    @Column(name = "price_minor")
+    private Long priceMinor;
+
+    /** ISO 4217 code of priceMinor */
+    @Column(name = "price_currency", length = 3)
+    private String priceCurrency;
+
+    /** Condition from ad_info, copied out of the JSONB so it can be indexed */
+    @Column(name = "item_condition")
+    private String itemCondition;
+
+    /** Brand from ad_info, copied out of the JSONB so it can be indexed */
+    @Column(name = "brand")
+    private String brand;
     
     @Column(name = "location")
     private String location;
@@ -51,6 +79,14 @@ public class ProductDetails {
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
+
+    /** When the row was last extracted from the product's own page; null for rows known only from listing cards */
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
+
+    /** When the backfill last tried to normalize this row; rows whose price cannot be parsed are not retried */
+    @Column(name = "normalize_attempted_at")
+    private LocalDateTime normalizeAttemptedAt;
     
     @PrePersist
     protected void onCreate() {
@@ -0,0 +1,42 @@
+package com.scraper.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * attr.NAME=VALUE request parameters: products whose ad_info, general_info or features hold that exact
+ * name/value pair. Every pair must match. Each is checked with JSONB containment (@>), which the
+ * jsonb_path_ops GIN indexes on those columns answer without scanning the table.
+ */
+public record AttributeFilter(Map<String, String> attributes) {
+
+    public static final String PARAM_PREFIX = "attr.";
+
+    /** Upper bound on pairs per request; each adds one index lookup per JSONB column */
+    static final int MAX_ATTRIBUTES = 10;
+
+    public static final AttributeFilter NONE = new AttributeFilter(Map.of());
+
+    /**
+     * The attr.* entries of a request's parameters; other parameters are ignored
+     *
+     * @throws IllegalArgumentException for an empty attribute name or too many attributes
+     */
+    public static AttributeFilter parse(Map<String, String> params) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        params.forEach((name, value) -> {
+            if (!name.startsWith(PARAM_PREFIX)) return;
+            String attribute = name.substring(PARAM_PREFIX.length());
+            if (attribute.isBlank()) throw new IllegalArgumentException("Empty attribute name in " + name);
+            attributes.put(attribute, value);
+        });
+        if (attributes.size() > MAX_ATTRIBUTES) {
+            throw new IllegalArgumentException("At most " + MAX_ATTRIBUTES + " attributes can be filtered on");
+        }
+        return attributes.isEmpty() ? NONE : new AttributeFilter(Map.copyOf(attributes));
+    }
+
+    public boolean isEmpty() {
+        return attributes.isEmpty();
+    }
+}
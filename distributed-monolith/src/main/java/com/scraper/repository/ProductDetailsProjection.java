@@ -0,0 +1,30 @@
+package com.scraper.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads of chosen product fields only, so description and the JSONB columns are neither fetched
+ * (nor detoasted) nor serialized unless a client asks for them
+ */
+public interface ProductDetailsProjection {
+
+    /** The requested fields of one row, keyed by JSON name in {@link ProductField} order, plus its keyset position */
+    record ProjectedRow(long id, LocalDateTime createdAt, Map<String, Object> fields) {}
+
+    /**
+     * One page of the rows matching the filter, in (created_at, id) order after the given position (null
+     * createdAt for the first page); the row comparison runs as a range scan on idx_product_details_created
+     */
+    List<ProjectedRow> findPage(Set<ProductField> fields, AttributeFilter filter, LocalDateTime afterCreatedAt,
+                                long afterId, int limit);
+
+    /**
+     * Every row matching the filter in (created_at, id) order through a cursor of fetchSize rows; call inside
+     * a transaction, PgJDBC only uses a server-side cursor outside auto-commit
+     */
+    void streamAll(Set<ProductField> fields, AttributeFilter filter, int fetchSize, Consumer<Map<String, Object>> sink);
+}
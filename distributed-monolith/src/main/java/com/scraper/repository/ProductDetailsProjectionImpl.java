@@ -0,0 +1,114 @@
+package com.scraper.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the column list from {@link ProductField} and the WHERE clause from {@link AttributeFilter};
+ * id and created_at are always read for the keyset
+ */
+@RequiredArgsConstructor
+public class ProductDetailsProjectionImpl implements ProductDetailsProjection {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public List<ProjectedRow> findPage(Set<ProductField> fields, AttributeFilter filter, LocalDateTime afterCreatedAt,
+                                       long afterId, int limit) {
+        RowMapper<ProjectedRow> mapper = (rs, rowNum) -> new ProjectedRow(rs.getLong("id"),
+                toLocalDateTime(rs.getTimestamp("created_at")), read(rs, fields));
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        addFilter(filter, conditions, args);
+        if (afterCreatedAt != null) {
+            conditions.add("(created_at, id) > (?, ?)");
+            args.add(Timestamp.valueOf(afterCreatedAt));
+            args.add(afterId);
+        }
+        args.add(limit);
+        return jdbcTemplate.query(select(fields) + where(conditions) + " ORDER BY created_at, id LIMIT ?",
+                mapper, args.toArray());
+    }
+
+    @Override
+    public void streamAll(Set<ProductField> fields, AttributeFilter filter, int fetchSize,
+                          Consumer<Map<String, Object>> sink) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        addFilter(filter, conditions, args);
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+        streaming.query(select(fields) + where(conditions) + " ORDER BY created_at, id",
+                (RowCallbackHandler) rs -> sink.accept(read(rs, fields)), args.toArray());
+    }
+
+    /**
+     * One containment test per attribute against each JSONB column. Postgres ORs the GIN index lookups of
+     * the three columns and ANDs those of the attributes into one bitmap before touching the table.
+     */
+    private void addFilter(AttributeFilter filter, List<String> conditions, List<Object> args) {
+        filter.attributes().forEach((name, value) -> {
+            String document;
+            try {
+                document = objectMapper.writeValueAsString(Map.of(name, value));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Unusable attribute " + name, e);
+            }
+            conditions.add("(ad_info @> ?::jsonb OR general_info @> ?::jsonb OR features @> ?::jsonb)");
+            args.add(document);
+            args.add(document);
+            args.add(document);
+        });
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String select(Set<ProductField> fields) {
+        String columns = fields.stream()
+                .filter(field -> field != ProductField.ID && field != ProductField.CREATED_AT)
+                .map(ProductField::column)
+                .collect(Collectors.joining(", "));
+        return "SELECT id, created_at" + (columns.isEmpty() ? "" : ", " + columns) + " FROM product_details";
+    }
+
+    private static Map<String, Object> read(ResultSet rs, Set<ProductField> fields) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (ProductField field : fields) {
+            Object value = switch (field) {
+                case ID -> rs.getLong("id");
+                case PRICE_MINOR -> rs.getObject("price_minor", Long.class);
+                // Same text as ProductResponse.createdAt
+                case CREATED_AT -> {
+                    LocalDateTime createdAt = toLocalDateTime(rs.getTimestamp("created_at"));
+                    yield createdAt != null ? createdAt.toString() : null;
+                }
+                default -> rs.getString(field.column());
+            };
+            row.put(field.jsonName(), value);
+        }
+        return row;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,14 +1,32 @@
 package com.scraper.repository;
 
 import com.scraper.entity.ProductDetails;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductDetailsRepository extends JpaRepository<ProductDetails, Long> {
+public interface ProductDetailsRepository extends JpaRepository<ProductDetails, Long>, ProductDetailsUpsert,
+        ProductDetailsProjection {
     Optional<ProductDetails> findByUrl(String url);
-    boolean existsByUrl(String url);
+
+    /** Range scan on idx_product_details_price; the Pageable's sort should be on priceMinor */
+    List<ProductDetails> findByPriceCurrencyAndPriceMinorBetween(String priceCurrency, long minMinor, long maxMinor, Pageable pageable);
+
+    /** Rows after the given ID that were saved before prices were normalized and no backfill has tried yet */
+    List<ProductDetails> findByIdGreaterThanAndPriceMinorIsNullAndNormalizeAttemptedAtIsNullOrderByIdAsc(Long id, Pageable pageable);
+
+    /** Record a backfill attempt on rows it could not normalize, so later runs skip them */
+    @Modifying
+    @Query("update ProductDetails p set p.normalizeAttemptedAt = :at where p.id in :ids")
+    int markNormalizeAttempted(@Param("ids") Collection<Long> ids, @Param("at") LocalDateTime at);
 }
 
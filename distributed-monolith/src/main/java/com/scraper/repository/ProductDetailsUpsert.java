@@ -0,0 +1,31 @@
+package com.scraper.repository;
+
+import com.scraper.entity.ProductDetails;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-statement insert-or-update of a product keyed by its URL
+ */
+public interface ProductDetailsUpsert {
+
+    enum Outcome { INSERTED, UPDATED, UNCHANGED }
+
+    /**
+     * INSERT ... ON CONFLICT (url) DO UPDATE, touching an existing row only when a field differs.
+     * The ID and created_at of the given entity are ignored; new rows get both assigned.
+     * A changed row takes the entity's verified_at, so data from a listing card clears the verification.
+     */
+    Outcome upsert(ProductDetails product);
+
+    /** Stamp a row whose page was extracted again without any field changing */
+    void markVerified(String url, LocalDateTime at);
+
+    /**
+     * The same upsert for many products, as multi-row statements of up to a few hundred rows each.
+     * URLs must be distinct. Returns the outcome per URL.
+     */
+    Map<String, Outcome> upsertAll(List<ProductDetails> products);
+}
@@ -0,0 +1,90 @@
+package com.scraper.repository;
+
+import com.scraper.entity.ProductDetails;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upsert through one native statement: concurrent saves of the same URL cannot hit the unique
+ * constraint, and RETURNING (xmax = 0) tells a fresh insert from an update of an existing row.
+ * Batches repeat the VALUES row, so a whole chunk is one round trip.
+ */
+@RequiredArgsConstructor
+public class ProductDetailsUpsertImpl implements ProductDetailsUpsert {
+
+    private static final String INSERT = "INSERT INTO product_details (id, url, title, description, price, "
+            + "price_minor, price_currency, item_condition, brand, location, ad_info, general_info, features, verified_at, "
+            + "created_at) VALUES ";
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?::jsonb, ?::timestamp, now())";
+
+    private static final String ON_CONFLICT = " ON CONFLICT (url) DO UPDATE SET title = EXCLUDED.title, "
+            + "description = EXCLUDED.description, "
+            + "price = EXCLUDED.price, price_minor = EXCLUDED.price_minor, price_currency = EXCLUDED.price_currency, "
+            + "item_condition = EXCLUDED.item_condition, brand = EXCLUDED.brand, location = EXCLUDED.location, "
+            + "ad_info = EXCLUDED.ad_info, general_info = EXCLUDED.general_info, features = EXCLUDED.features, "
+            + "verified_at = EXCLUDED.verified_at "
+            + "WHERE (product_details.title, product_details.description, product_details.price, "
+            + "product_details.price_minor, product_details.price_currency, product_details.item_condition, "
+            + "product_details.brand, product_details.location, product_details.ad_info, "
+            + "product_details.general_info, product_details.features) "
+            + "IS DISTINCT FROM (EXCLUDED.title, EXCLUDED.description, EXCLUDED.price, EXCLUDED.price_minor, "
+            + "EXCLUDED.price_currency, EXCLUDED.item_condition, EXCLUDED.brand, EXCLUDED.location, "
+            + "EXCLUDED.ad_info, EXCLUDED.general_info, EXCLUDED.features) ";
+
+    private static final String UPSERT = INSERT + ROW + ON_CONFLICT + "RETURNING (xmax = 0)";
+
+    /** Rows per multi-row statement, well below the 65535 bind parameters Postgres accepts */
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductIdAllocator idAllocator;
+
+    @Override
+    public Outcome upsert(ProductDetails p) {
+        List<Boolean> inserted = jdbcTemplate.queryForList(UPSERT, Boolean.class, values(p).toArray());
+        // No row comes back when the conflicting row already holds the same values
+        if (inserted.isEmpty()) return Outcome.UNCHANGED;
+        return Boolean.TRUE.equals(inserted.get(0)) ? Outcome.INSERTED : Outcome.UPDATED;
+    }
+
+    @Override
+    public Map<String, Outcome> upsertAll(List<ProductDetails> products) {
+        Map<String, Outcome> outcomes = new HashMap<>();
+        for (int from = 0; from < products.size(); from += ROWS_PER_STATEMENT) {
+            List<ProductDetails> chunk = products.subList(from, Math.min(from + ROWS_PER_STATEMENT, products.size()));
+            String sql = INSERT + String.join(", ", Collections.nCopies(chunk.size(), ROW)) + ON_CONFLICT
+                    + "RETURNING url, (xmax = 0)";
+            List<Object> args = new ArrayList<>(chunk.size() * 14);
+            for (ProductDetails p : chunk) {
+                args.addAll(values(p));
+            }
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                    outcomes.put(rs.getString(1), rs.getBoolean(2) ? Outcome.INSERTED : Outcome.UPDATED), args.toArray());
+            // Rows that already held the same values are not returned
+            chunk.forEach(p -> outcomes.putIfAbsent(p.getUrl(), Outcome.UNCHANGED));
+        }
+        return outcomes;
+    }
+
+    /** Bind values of one ROW, with a fresh ID */
+    private List<Object> values(ProductDetails p) {
+        return Arrays.asList(idAllocator.nextId(), p.getUrl(), p.getTitle(), p.getDescription(), p.getPrice(),
+                p.getPriceMinor(), p.getPriceCurrency(), p.getItemCondition(), p.getBrand(), p.getLocation(),
+                p.getAdInfo(), p.getGeneralInfo(), p.getFeatures(), p.getVerifiedAt());
+    }
+
+    @Override
+    public void markVerified(String url, LocalDateTime at) {
+        jdbcTemplate.update("UPDATE product_details SET verified_at = ? WHERE url = ?", at, url);
+    }
+}
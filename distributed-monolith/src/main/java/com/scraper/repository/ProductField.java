@@ -0,0 +1,71 @@
+package com.scraper.repository;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Product fields clients can ask for with fields=, in response order, with the column each is read from.
+ * Only these columns can ever end up in a projected SELECT.
+ */
+public enum ProductField {
+    ID("id", "id"),
+    URL("url", "url"),
+    TITLE("title", "title"),
+    DESCRIPTION("description", "description"),
+    PRICE("price", "price"),
+    PRICE_MINOR("priceMinor", "price_minor"),
+    PRICE_CURRENCY("priceCurrency", "price_currency"),
+    LOCATION("location", "location"),
+    AD_INFO("adInfo", "ad_info"),
+    GENERAL_INFO("generalInfo", "general_info"),
+    FEATURES("features", "features"),
+    CREATED_AT("createdAt", "created_at");
+
+    /** What dashboards list: no description and no JSONB */
+    public static final Set<ProductField> SUMMARY = EnumSet.of(ID, URL, TITLE, PRICE, CREATED_AT);
+
+    private final String jsonName;
+    private final String column;
+
+    ProductField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Comma-separated field names, or "summary"; blank means every field
+     *
+     * @throws IllegalArgumentException for an unknown field name
+     */
+    public static Set<ProductField> parse(String fields) {
+        if (fields == null || fields.isBlank()) return EnumSet.allOf(ProductField.class);
+        Set<ProductField> parsed = EnumSet.noneOf(ProductField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            if (trimmed.toLowerCase(Locale.ROOT).equals("summary")) {
+                parsed.addAll(SUMMARY);
+                continue;
+            }
+            parsed.add(byJsonName(trimmed));
+        }
+        if (parsed.isEmpty()) throw new IllegalArgumentException("No fields requested");
+        return parsed;
+    }
+
+    private static ProductField byJsonName(String name) {
+        for (ProductField field : values()) {
+            if (field.jsonName.equals(name)) return field;
+        }
+        throw new IllegalArgumentException("Unknown product field: " + name);
+    }
+}
@@ -0,0 +1,38 @@
+package com.scraper.repository;
+
+import com.scraper.entity.ProductDetails;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out product IDs for native inserts from blocks of product_details_seq, the way Hibernate's pooled
+ * optimizer does for entity saves: one nextval per {@link ProductDetails#ID_ALLOCATION_SIZE} IDs
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Not synchronized: nextval would pin a virtual thread's carrier for the round trip */
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long blockEnd = -1;
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next > blockEnd) {
+                Long end = jdbcTemplate.queryForObject("SELECT nextval('product_details_seq')", Long.class);
+                blockEnd = end;
+                next = end - ProductDetails.ID_ALLOCATION_SIZE + 1;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
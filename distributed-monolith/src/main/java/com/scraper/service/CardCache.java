@@ -0,0 +1,246 @@
+package com.scraper.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.ProductInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes listing card extraction across crawls. A card is keyed by a SHA-256 fingerprint of its outer
+ * HTML (plus the base URI its links resolve against), so a byte-identical card on a later crawl reuses
+ * the ProductInfo extracted the first time instead of running the selectors again.
+ * Entries live in a bounded LRU and are optionally written to scraper.card-cache.file on shutdown.
+ * The LRU is split into independently locked stripes chosen by fingerprint, so the parallel card
+ * extraction of one page does not queue up on a single lock; eviction order is kept per stripe.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardCache {
+
+    private static final int STRIPES = 16;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final ObjectMapper objectMapper;
+
+    /** Upper bound on remembered cards; 0 disables the cache */
+    @Value("${scraper.card-cache.max-entries:10000}")
+    private int maxEntries;
+
+    /** Where entries are kept between restarts; empty keeps them in memory only */
+    @Value("${scraper.card-cache.file:}")
+    private String file;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private Stripe[] stripes;
+
+    /** Extraction result of one card; url is null for extractors that are given the URL */
+    public record CachedCard(String url, ProductInfo product) {}
+
+    public record Stats(long hits, long misses, double hitRatio, int size) {}
+
+    /** One LRU segment holding its share of maxEntries */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CachedCard> entries;
+
+        Stripe(int capacity) {
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedCard> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    @PostConstruct
+    void load() {
+        int count = Math.max(1, Math.min(STRIPES, maxEntries));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            // Stripe capacities add up to exactly maxEntries
+            stripes[i] = new Stripe(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+        if (file.isBlank() || maxEntries <= 0 || !Files.exists(Paths.get(file))) {
+            return;
+        }
+        try {
+            Map<String, CachedCard> stored = objectMapper.readValue(Paths.get(file).toFile(),
+                    new TypeReference<LinkedHashMap<String, CachedCard>>() {});
+            stored.forEach(this::put);
+            log.info("Loaded {} cached cards from {}", size(), file);
+        } catch (IOException e) {
+            log.warn("Could not load card cache from {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void save() {
+        if (file.isBlank() || maxEntries <= 0) {
+            return;
+        }
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Map<String, CachedCard> snapshot = new LinkedHashMap<>();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    snapshot.putAll(stripe.entries);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            objectMapper.writeValue(path.toFile(), snapshot);
+            log.info("Saved {} cached cards to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            log.warn("Could not save card cache to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * A card extractor that yields the product URL with the product, memoized by the card's fingerprint.
+     * Null results (cards without a usable link) are not remembered.
+     */
+    public Map.Entry<String, ProductInfo> card(String kind, Element card,
+                                               Function<Element, Map.Entry<String, ProductInfo>> extractor) {
+        if (maxEntries <= 0) return extractor.apply(card);
+
+        String key = fingerprint(kind, card, null);
+        CachedCard cached = get(key);
+        if (cached != null) {
+            return Map.entry(cached.url(), copy(cached.product()));
+        }
+        Map.Entry<String, ProductInfo> extracted = extractor.apply(card);
+        if (extracted != null) {
+            put(key, new CachedCard(extracted.getKey(), copy(extracted.getValue())));
+        }
+        return extracted;
+    }
+
+    /**
+     * A card extractor that is given the product URL, memoized by the card's fingerprint and that URL
+     */
+    public ProductInfo product(String kind, Element card, String productUrl, Supplier<ProductInfo> extractor) {
+        if (maxEntries <= 0) return extractor.get();
+
+        String key = fingerprint(kind, card, productUrl);
+        CachedCard cached = get(key);
+        if (cached != null) {
+            return copy(cached.product());
+        }
+        ProductInfo extracted = extractor.get();
+        if (extracted != null) {
+            put(key, new CachedCard(null, copy(extracted)));
+        }
+        return extracted;
+    }
+
+    public Stats stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new Stats(h, m, h + m == 0 ? 0.0 : (double) h / (h + m), size());
+    }
+
+    private int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private CachedCard get(String key) {
+        Stripe stripe = stripeOf(key);
+        CachedCard cached;
+        stripe.lock.lock();
+        try {
+            cached = stripe.entries.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+    private void put(String key, CachedCard card) {
+        Stripe stripe = stripeOf(key);
+        stripe.lock.lock();
+        try {
+            stripe.entries.put(key, card);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private static String fingerprint(String kind, Element card, String productUrl) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        digest.update(kind.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        // Relative links resolve against the page, so the same markup on another host is another card
+        digest.update(card.baseUri().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (productUrl != null) {
+            digest.update(productUrl.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        digest.update(card.outerHtml().getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * Callers own the ProductInfo they get back, so the cache hands out and keeps its own copies
+     */
+    private static ProductInfo copy(ProductInfo info) {
+        return ProductInfo.builder()
+                .title(info.getTitle())
+                .description(info.getDescription())
+                .price(info.getPrice())
+                .location(info.getLocation())
+                .adInfo(info.getAdInfo() != null ? new HashMap<>(info.getAdInfo()) : null)
+                .generalInfo(info.getGeneralInfo() != null ? new HashMap<>(info.getGeneralInfo()) : null)
+                .features(info.getFeatures() != null ? new HashMap<>(info.getFeatures()) : null)
+                .build();
+    }
+}
@@ -0,0 +1,307 @@
+package com.scraper.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.ProductInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.scraper.service.ExtractionPatterns.*;
+
+/**
+ * Reads product records from JSON embedded in the page instead of the rendered DOM:
+ * schema.org Product blocks (application/ld+json) on item pages and the Next.js page state
+ * (__NEXT_DATA__) on client-rendered listings.
+ * Payloads are read token by token with Jackson's streaming parser; only scalar fields are kept and
+ * subtrees that never hold product data are skipped without being materialized.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddedJsonExtractor {
+
+    /** Nested objects whose fields belong to the enclosing record, e.g. offers.price or brand.name */
+    private static final Set<String> FLATTENED_KEYS = Set.of("offers", "brand", "price", "image", "images", "photo", "photos");
+
+    /** Large page-state subtrees that never hold product records */
+    private static final Set<String> SKIPPED_KEYS = Set.of(
+            "review", "reviews", "aggregateRating", "_nextI18Next", "i18n", "translations", "locales", "messages");
+
+    private static final int MAX_DEPTH = 64;
+
+    /** Nesting kept below a flattened key, enough for offers.seller.address.addressLocality */
+    private static final int MAX_FLATTEN_DEPTH = 3;
+
+    /** Where schema.org puts an offer's item location: its pickup place, the seller's address or the shipping origin */
+    private static final String[] LOCATION_PREFIXES = {
+            "offers.availableAtOrFrom.address.", "offers.seller.address.", "offers.shippingDetails.shippingOrigin."};
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The first schema.org Product in the page's JSON-LD blocks, mapped to ProductInfo
+     */
+    public Optional<ProductInfo> productFromJsonLd(Document doc) {
+        for (Element script : doc.select(JSON_LD_SCRIPT)) {
+            Map<String, String> product = new HashMap<>();
+            parse(script.data(), fields -> {
+                if (product.isEmpty() && "Product".equals(fields.get("@type"))) {
+                    product.putAll(fields);
+                }
+            });
+            if (!product.isEmpty()) {
+                return Optional.of(toProductInfo(product, "Item ID"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Ad records in the Next.js page state, keyed by product URL. Empty when the page has no such state.
+     */
+    public Map<String, ProductInfo> listingFromNextData(Document doc, String pageUrl) {
+        Map<String, ProductInfo> products = new LinkedHashMap<>();
+        String payload = nextDataPayload(doc);
+        if (payload == null) {
+            return products;
+        }
+        parse(payload, fields -> addAd(fields, pageUrl, products));
+        log.debug("Read {} products from __NEXT_DATA__ on {}", products.size(), pageUrl);
+        return products;
+    }
+
+    /** One page of a listing API response: the ads on it and the cursor of the next page, if any */
+    public record ApiPage(Map<String, ProductInfo> products, String nextCursor) {}
+
+    /**
+     * Ad records and the pagination cursor in a JSON API response (XHR or GraphQL).
+     * The cursor is taken from Relay-style pageInfo (endCursor/hasNextPage) or a plain nextCursor field.
+     */
+    public ApiPage listingFromApi(String json, String pageUrl) {
+        Map<String, ProductInfo> products = new LinkedHashMap<>();
+        String[] cursor = new String[1];
+        boolean[] hasNext = {true};
+        parse(json, fields -> {
+            if ("false".equals(fields.get("hasNextPage"))) hasNext[0] = false;
+            String next = firstOf(fields, "endCursor", "nextCursor");
+            if (next != null) cursor[0] = next;
+            addAd(fields, pageUrl, products);
+        });
+        return new ApiPage(products, hasNext[0] ? cursor[0] : null);
+    }
+
+    private static void addAd(Map<String, String> fields, String pageUrl, Map<String, ProductInfo> products) {
+        String id = firstOf(fields, "id", "adId", "adid");
+        String title = firstOf(fields, "title", "name", "subject");
+        if (id == null || title == null || title.isBlank() || !AD_ID.matcher(id).matches()) {
+            return;
+        }
+        String url = productUrl(fields, id, pageUrl);
+        if (url != null) {
+            products.putIfAbsent(url, toProductInfo(fields, "Product ID"));
+        }
+    }
+
+    private static String nextDataPayload(Document doc) {
+        Element script = doc.selectFirst(NEXT_DATA_SCRIPT);
+        if (script != null) {
+            return script.data();
+        }
+        // Older Next.js builds assign the state inline: window.__NEXT_DATA__ = {...}
+        Element inline = doc.selectFirst(NEXT_DATA_INLINE_SCRIPT);
+        if (inline != null) {
+            String data = inline.data();
+            int start = data.indexOf('{', data.indexOf("__NEXT_DATA__"));
+            return start >= 0 ? data.substring(start) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Stream through a JSON document and hand the scalar fields of every object to the sink.
+     * Parsing stops after the first root value, so trailing script text is ignored.
+     */
+    private void parse(String json, Consumer<Map<String, String>> sink) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != null) {
+                readValue(parser, sink, 0);
+            }
+        } catch (IOException e) {
+            log.debug("Unreadable embedded JSON: {}", e.getMessage());
+        }
+    }
+
+    private void readValue(JsonParser parser, Consumer<Map<String, String>> sink, int depth) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (depth > MAX_DEPTH) {
+            parser.skipChildren();
+        } else if (token == JsonToken.START_OBJECT) {
+            sink.accept(readObject(parser, sink, depth));
+        } else if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                readValue(parser, sink, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Read one object: scalars are kept, flattened children are merged with a key prefix,
+     * other children are walked as records of their own
+     */
+    private Map<String, String> readObject(JsonParser parser, Consumer<Map<String, String>> sink, int depth) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isScalarValue()) {
+                if (value != JsonToken.VALUE_NULL) fields.put(key, parser.getText());
+            } else if (SKIPPED_KEYS.contains(key)) {
+                parser.skipChildren();
+            } else if (FLATTENED_KEYS.contains(key)) {
+                flatten(parser, key, fields);
+            } else if (value == JsonToken.START_ARRAY && key.startsWith("@")) {
+                // "@type": ["Product", "Thing"] keeps the first entry
+                String first = null;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (first == null && parser.currentToken().isScalarValue()) first = parser.getText();
+                    parser.skipChildren();
+                }
+                if (first != null) fields.put(key, first);
+            } else {
+                readValue(parser, sink, depth + 1);
+            }
+        }
+        return fields;
+    }
+
+    private static void flatten(JsonParser parser, String key, Map<String, String> fields) throws IOException {
+        flatten(parser, key, fields, 0);
+    }
+
+    /**
+     * Merge a nested value into the parent: objects as key.field, arrays by their first element.
+     * Objects nested up to MAX_FLATTEN_DEPTH levels keep their full path, e.g. offers.availableAtOrFrom.address.addressLocality.
+     */
+    private static void flatten(JsonParser parser, String key, Map<String, String> fields, int depth) throws IOException {
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            boolean first = true;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (first) {
+                    if (parser.currentToken().isScalarValue()) {
+                        fields.put(key, parser.getText());
+                    } else {
+                        flatten(parser, key, fields, depth);
+                    }
+                    first = false;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isScalarValue()) {
+                fields.put(key + "." + field, parser.getText());
+            } else if (depth < MAX_FLATTEN_DEPTH && !SKIPPED_KEYS.contains(field)) {
+                flatten(parser, key + "." + field, fields, depth + 1);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static ProductInfo toProductInfo(Map<String, String> fields, String idLabel) {
+        Map<String, String> adInfo = new HashMap<>();
+        Map<String, String> generalInfo = new HashMap<>();
+
+        String id = firstOf(fields, "sku", "productID", "id", "adId", "adid");
+        if (id != null) adInfo.put(idLabel, id);
+
+        String condition = firstOf(fields, "offers.itemCondition", "itemCondition", "condition");
+        if (condition != null) {
+            // schema.org conditions are URLs like https://schema.org/NewCondition
+            condition = condition.substring(condition.lastIndexOf('/') + 1).replace("Condition", "");
+            if (!condition.isEmpty()) adInfo.put("Condition", condition);
+        }
+
+        String brand = firstOf(fields, "brand.name", "brand");
+        if (brand != null) adInfo.put("Brand", brand);
+
+        String image = firstOf(fields, "image", "image.url", "image.contentUrl", "images", "images.url", "photo", "photos", "photos.url");
+        if (image != null) generalInfo.put("Image URL", image);
+
+        return ProductInfo.builder()
+                .title(firstOf(fields, "name", "title", "subject"))
+                .description(fields.get("description"))
+                .price(priceOf(fields))
+                .location(locationOf(fields))
+                .adInfo(adInfo)
+                .generalInfo(generalInfo)
+                .build();
+    }
+
+    private static String priceOf(Map<String, String> fields) {
+        String amount = firstOf(fields, "offers.price", "offers.lowPrice", "price", "price.value", "price.amount");
+        if (amount == null) return null;
+        String currency = firstOf(fields, "offers.priceCurrency", "priceCurrency", "price.currency", "price.unit", "currency");
+        return currency != null ? amount + " " + currency : amount;
+    }
+
+    /**
+     * "Locality, Region, Country" from the first schema.org place or PostalAddress that has any of them
+     */
+    private static String locationOf(Map<String, String> fields) {
+        for (String prefix : LOCATION_PREFIXES) {
+            String location = Stream.of("addressLocality", "addressRegion", "addressCountry", "addressCountry.name")
+                    .map(part -> fields.get(prefix + part))
+                    .filter(part -> part != null && !part.isBlank())
+                    .distinct()
+                    .collect(Collectors.joining(", "));
+            if (!location.isEmpty()) return location;
+        }
+        return null;
+    }
+
+    private static String productUrl(Map<String, String> fields, String id, String pageUrl) {
+        try {
+            URI page = URI.create(pageUrl);
+            String link = firstOf(fields, "url", "href", "link", "path");
+            if (link != null && !link.isBlank()) {
+                return page.resolve(link).toString();
+            }
+            // 999.md ads have no link in the page state; their pages live at /ro/{id}
+            String host = page.getHost();
+            if (host != null && host.toLowerCase().endsWith("999.md")) {
+                return page.getScheme() + "://" + host + "/ro/" + id;
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Cannot build product URL for {} on {}: {}", id, pageUrl, e.getMessage());
+        }
+        return null;
+    }
+
+    private static String firstOf(Map<String, String> fields, String... keys) {
+        for (String key : keys) {
+            String value = fields.get(key);
+            if (value != null && !value.isBlank()) return value;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+package com.scraper.service;
+
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled regexes and CSS selectors used by the extraction code.
+ * Pattern.compile and Jsoup's selector parsing are both far more expensive than the match itself,
+ * so everything used per card, per link or per page is compiled once here.
+ */
+public final class ExtractionPatterns {
+
+    private ExtractionPatterns() {
+    }
+
+    // eBay item IDs
+
+    public static final Pattern EBAY_ITEM_ID = Pattern.compile("/(?:itm|i|p)/(\\d+)");
+    public static final Pattern EBAY_PRODUCT_ID = Pattern.compile("/p/(\\d+)");
+    public static final Pattern EBAY_IID_PARAM = Pattern.compile("iid=([0-9]+)");
+    public static final Pattern EBAY_ITEM_ID_SCRIPT = Pattern.compile("itemId\\s*:\\s*'?(\\d+)'?");
+
+    // 999.md ad IDs
+
+    public static final Pattern DIGITS = Pattern.compile("\\d+");
+    public static final Pattern AD_ID = Pattern.compile("\\d{6,12}");
+    public static final Pattern AD_PATH_ID = Pattern.compile("/ro/(\\d+)");
+    public static final Pattern AD_PATH_ID_6_12 = Pattern.compile("/ro/(\\d{6,12})");
+    public static final Pattern AD_PATH_ID_IN_HTML = Pattern.compile("/ro/(\\d{6,12})(?!\\d)");
+    public static final Pattern AD_HREF_ID = Pattern.compile("href=[\"']/ro/(\\d{6,12})(?:[?\"']|[\"']|\\s|>)");
+    public static final Pattern DATA_ADID_ATTR = Pattern.compile("data-adid=[\"'](\\d{6,12})[\"']");
+    public static final Pattern DATA_ID_ATTR = Pattern.compile("data-id=[\"'](\\d{6,12})[\"']");
+    public static final Pattern JSON_ADID = Pattern.compile("\"adid\"\\s*:\\s*\"(\\d{6,12})\"");
+    public static final Pattern NEXT_DATA_ID = Pattern.compile("\"(?:id|adId|adid)\"\\s*:\\s*\"(\\d{6,12})\"");
+    public static final Pattern SCRIPT_ID = Pattern.compile("[\"']id[\"']\\s*[:=]\\s*[\"']?(\\d{6,12})[\"']?");
+    public static final Pattern SCRIPT_ADID = Pattern.compile("[\"'](?:adid|adId|ad_id)[\"']\\s*[:=]\\s*[\"']?(\\d{6,12})[\"']?");
+    public static final Pattern SCRIPT_AD_LINK = Pattern.compile("(?:href|url|link|path)\\s*[:=]\\s*[\"']/ro/(\\d{6,12})[\"']");
+    public static final Pattern SCRIPT_API_URL = Pattern.compile("(?:uri|endpoint|url)[\"']\\s*:\\s*[\"']([^\"']*api[^\"']*)[\"']");
+    public static final Pattern SCRIPT_FETCH_URL = Pattern.compile("fetch\\([\"']([^\"']*api[^\"']*)[\"']");
+
+    // Listing API discovery in page scripts
+
+    public static final Pattern SCRIPT_GRAPHQL_URL = Pattern.compile("[\"']((?:https?://[^\"'\\s]+)?/graphql[^\"'\\s]*)[\"']");
+    /** A GraphQL operation inlined as a string literal, e.g. "query SearchAds($input: ..., $after: String) { ... }" */
+    public static final Pattern SCRIPT_GRAPHQL_QUERY = Pattern.compile("[\"'`]\\s*(query\\s+\\w+\\s*\\([^\"'`]*)[\"'`]");
+    public static final Pattern GRAPHQL_CURSOR_VARIABLE = Pattern.compile("\\$(after|cursor|endCursor)\\b");
+    /** A variable declared in an operation header, e.g. $first: Int! or $tags: [String!] */
+    public static final Pattern GRAPHQL_VARIABLE_DECLARATION = Pattern.compile("\\$(\\w+)\\s*:\\s*([\\w\\[\\]!]+)");
+    /** The variables object a page passes with its operation, in a script or in the Next.js page state */
+    public static final Pattern SCRIPT_GRAPHQL_VARIABLES = Pattern.compile("[\"']?variables[\"']?\\s*:\\s*\\{");
+
+    // eBay browse layout (li.brwrvr__item-card)
+
+    public static final Evaluator BROWSE_CARD_LINK = QueryParser.parse("a.brwrvr__item-card__image-link[href], a.bsig__title__wrapper[href], a[href*='/p/'], a[href*='/itm/']");
+    public static final Evaluator BROWSE_CARD_TITLE = QueryParser.parse("h3.bsig__title__text, .bsig__title__text, h3[class*=title]");
+    public static final Evaluator BROWSE_CARD_SUBTITLE = QueryParser.parse(".bsig__subTitle, .bsig____search.subTitle");
+    public static final Evaluator BROWSE_CARD_PRICE = QueryParser.parse(".bsig__price, .bsig__price--displayprice");
+    public static final Evaluator BROWSE_CARD_CONDITION = QueryParser.parse(".bsig__listingCondition, .bsig__listingCondition.secondary");
+    public static final Evaluator BROWSE_CARD_SECONDARY = QueryParser.parse(".bsig__listingCondition.secondary");
+    public static final Evaluator BROWSE_CARD_SHIPPING = QueryParser.parse(".bsig__logisticsCost");
+    public static final Evaluator BROWSE_CARD_SOLD = QueryParser.parse(".bsig__item-hotness, .bsig__item-hotness .negative, .bsig__item-hotness .textual-display");
+    public static final Evaluator BROWSE_CARD_RATING = QueryParser.parse(".star-rating");
+    public static final Evaluator BROWSE_CARD_REVIEW_COUNT = QueryParser.parse(".bsig__product-review__count");
+    public static final Evaluator BROWSE_CARD_IMAGE = QueryParser.parse("img.brwrvr__item-card__image[src], img[data-originalsrc]");
+
+    // eBay search layout (li.s-item)
+
+    public static final Evaluator SEARCH_ITEM_LINK = QueryParser.parse("a.s-item__link[href], a[href*='/itm/']");
+    public static final Evaluator SEARCH_ITEM_TITLE = QueryParser.parse("h3.s-item__title, span[role=heading], .s-item__title");
+    public static final Evaluator SEARCH_ITEM_SUBTITLE = QueryParser.parse(".s-item__subtitle");
+    public static final Evaluator SEARCH_ITEM_PRICE = QueryParser.parse(".s-item__price, .x-price-primary");
+    public static final Evaluator SEARCH_ITEM_CONDITION = QueryParser.parse(".s-item__condition, .SECONDARY_INFO");
+    public static final Evaluator SEARCH_ITEM_SHIPPING = QueryParser.parse(".s-item__shipping, .s-item__freeXDays");
+    public static final Evaluator SEARCH_ITEM_SOLD = QueryParser.parse(".s-item__hotness, .s-item__quantitySold");
+    public static final Evaluator SEARCH_ITEM_IMAGE = QueryParser.parse("img.s-item__image-img[src], img[src]");
+
+    // Containers around bare eBay item links, and streamed listing elements
+
+    public static final Evaluator EBAY_ANY_PRICE = QueryParser.parse(".s-item__price, .x-price-primary, .bsig__price");
+    public static final Evaluator EBAY_ANY_TITLE = QueryParser.parse("h3.s-item__title, h3.bsig__title__text, span[role=heading], .s-item__title");
+
+    /** Item cards and the pagination links that follow them, in document order */
+    public static final Evaluator STREAMED_LISTING_ELEMENTS = QueryParser.parse(
+            "li.brwrvr__item-card, li.s-item, a[rel=next][href], a[aria-label='Next page'][href], a.pagination__next[href]");
+
+    // eBay product page
+
+    public static final Evaluator EBAY_PRODUCT_TITLE = QueryParser.parse("h1.x-item-title__mainTitle, h1#itemTitle, h1[itemprop=name]");
+    public static final Evaluator EBAY_PRODUCT_PRICE = QueryParser.parse(".x-price-primary, span#prcIsum, span[itemprop=price]");
+    public static final Evaluator EBAY_PRODUCT_LOCATION = QueryParser.parse(".ux-seller-section__itemLocation, #itemLocation");
+
+    // 999.md listing wrapper (div.AdPhoto_wrapper__gAOIH)
+
+    public static final Evaluator AD_WRAPPER = QueryParser.parse("div.AdPhoto_wrapper__gAOIH");
+    public static final Evaluator AD_WITH_ID = QueryParser.parse("div[data-adid]");
+    public static final Evaluator AD_TITLE_LINK = QueryParser.parse("a.AdPhoto_info__link__OwhY6[href], a[data-testid=photo-item-title][href]");
+    public static final Evaluator AD_IMAGE_LINK = QueryParser.parse("a.AdPhoto_image__BMixw[href]");
+    public static final Evaluator AD_PATH_LINK = QueryParser.parse("a[href^='/ro/']");
+    public static final Evaluator AD_IMAGE = QueryParser.parse("img[src]");
+    public static final Evaluator AD_LABEL_WRAPPER = QueryParser.parse("span.AdLabel_label__wrapper__5F4Eh");
+    public static final Evaluator AD_LABEL = QueryParser.parse("span.AdLabel_label__custom__kkxZo");
+    public static final Evaluator AD_LABEL_ICON = QueryParser.parse("i");
+    public static final Evaluator AD_PRICE = QueryParser.parse("span.AdPrice_price__2L3eA");
+    public static final Evaluator AD_ODOMETER = QueryParser.parse("span.AdPrice_info__LYNmc");
+    public static final Evaluator AD_FIRST_PAYMENT = QueryParser.parse("span.AdPrice_first__payment__O_ljR");
+    public static final Evaluator AD_FAVORITE = QueryParser.parse("span[data-testid=ad-favorites][data-id], span[data-testid=add-booster-ad-favorites][data-id]");
+
+    // Embedded JSON payloads
+
+    public static final Evaluator JSON_LD_SCRIPT = QueryParser.parse("script[type=application/ld+json]");
+    public static final Evaluator NEXT_DATA_SCRIPT = QueryParser.parse("script#__NEXT_DATA__");
+    public static final Evaluator NEXT_DATA_INLINE_SCRIPT = QueryParser.parse("script:containsData(__NEXT_DATA__)");
+
+    // Generic pages
+
+    public static final Evaluator ANY_LINK = QueryParser.parse("a[href]");
+    public static final Evaluator GENERIC_NEXT_PAGE = QueryParser.parse("a[rel=next][href], a[aria-label='Next'][href], a[aria-label='Next page'][href], a[href*='page=']");
+    public static final Evaluator GENERIC_TITLE = QueryParser.parse("title, h1");
+    public static final Evaluator GENERIC_PRICE = QueryParser.parse("[class*='price'], .price, .amount, .x-price-primary");
+}
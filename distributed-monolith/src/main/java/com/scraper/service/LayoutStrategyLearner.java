@@ -0,0 +1,119 @@
+package com.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, per host and URL pattern, which extraction strategy last produced products, so later pages
+ * of the same kind try it first instead of paying for every strategy that fails before it.
+ * The full default order is re-probed every scraper.layout.reprobe-interval pages, when the learned
+ * strategy yields nothing, or when its yield drops below scraper.layout.yield-drop of its running average.
+ */
+@Component
+@Slf4j
+public class LayoutStrategyLearner {
+
+    /** Weight of the newest page in the running yield average */
+    private static final double YIELD_SMOOTHING = 0.3;
+
+    @Value("${scraper.layout.reprobe-interval:20}")
+    private int reprobeInterval;
+
+    @Value("${scraper.layout.yield-drop:0.5}")
+    private double yieldDrop;
+
+    private final Map<String, Learned> learned = new ConcurrentHashMap<>();
+
+    private static final class Learned {
+        Object strategy;
+        double averageYield;
+        int pagesSinceProbe;
+        boolean reprobe;
+    }
+
+    /**
+     * Strategies to try on the page: the learned one first and the rest in default order,
+     * or the plain default order when nothing is learned yet or a re-probe is due
+     */
+    public <S> List<S> order(String pageUrl, List<S> defaultOrder) {
+        Learned entry = learned.get(patternOf(pageUrl));
+        if (entry == null) {
+            return defaultOrder;
+        }
+        synchronized (entry) {
+            if (entry.reprobe || entry.pagesSinceProbe >= reprobeInterval || !defaultOrder.contains(entry.strategy)) {
+                return defaultOrder;
+            }
+            List<S> order = new ArrayList<>(defaultOrder.size());
+            @SuppressWarnings("unchecked")
+            S first = (S) entry.strategy;
+            order.add(first);
+            for (S strategy : defaultOrder) {
+                if (!strategy.equals(first)) order.add(strategy);
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Record which strategy produced products on the page (null when none did) and how many
+     */
+    public void record(String pageUrl, Object strategy, int yield) {
+        String pattern = patternOf(pageUrl);
+        if (strategy == null) {
+            Learned entry = learned.get(pattern);
+            if (entry != null) {
+                synchronized (entry) {
+                    entry.reprobe = true;
+                }
+            }
+            return;
+        }
+
+        Learned entry = learned.computeIfAbsent(pattern, p -> new Learned());
+        synchronized (entry) {
+            if (!strategy.equals(entry.strategy)) {
+                if (entry.strategy != null) {
+                    log.info("[Layout] {} switched from {} to {}", pattern, entry.strategy, strategy);
+                }
+                entry.strategy = strategy;
+                entry.averageYield = yield;
+                entry.pagesSinceProbe = 0;
+                entry.reprobe = false;
+                return;
+            }
+
+            boolean probed = entry.reprobe || entry.pagesSinceProbe >= reprobeInterval;
+            entry.pagesSinceProbe = probed ? 0 : entry.pagesSinceProbe + 1;
+            entry.reprobe = yield < entry.averageYield * yieldDrop;
+            if (entry.reprobe) {
+                log.info("[Layout] {} yield of {} dropped to {}, re-probing next page", pattern, strategy, yield);
+            }
+            entry.averageYield = YIELD_SMOOTHING * yield + (1 - YIELD_SMOOTHING) * entry.averageYield;
+        }
+    }
+
+    /**
+     * Host plus first path segment, e.g. www.ebay.com/b or www.ebay.com/sch
+     */
+    static String patternOf(String pageUrl) {
+        try {
+            URI uri = URI.create(pageUrl);
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase() : "";
+            String path = uri.getPath() != null ? uri.getPath() : "";
+            int start = path.startsWith("/") ? 1 : 0;
+            int end = path.indexOf('/', start);
+            String segment = end < 0 ? path.substring(start) : path.substring(start, end);
+            return host + "/" + segment;
+        } catch (IllegalArgumentException e) {
+            return pageUrl;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.scraper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.ProductInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+import static com.scraper.service.ExtractionPatterns.*;
+
+/**
+ * Reads listings from the JSON endpoints a client-rendered site calls itself instead of from its HTML.
+ * The endpoint (a GraphQL operation inlined in the page scripts, or a plain XHR URL) is discovered once
+ * per listing shape (host, path and query parameter names) from a listing page and cached; listing pages
+ * are then replayed as JSON requests with the listing's variables, following the response cursor.
+ * Only hosts listed in scraper.api.hosts use this mode.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListingApiClient {
+
+    private static final String DEFAULT_CURSOR_PARAM = "cursor";
+
+    private final PageFetcher pageFetcher;
+    private final EmbeddedJsonExtractor embeddedJsonExtractor;
+    private final ObjectMapper objectMapper;
+
+    /** Hosts (or host suffixes) whose listings are read through their JSON API */
+    @Value("${scraper.api.hosts:}")
+    private List<String> hosts;
+
+    /** How long a listing shape whose page exposed no endpoint is scraped as HTML before discovery is retried */
+    @Value("${scraper.api.discovery-retry:1h}")
+    private Duration discoveryRetry;
+
+    /** Discovery result per listing shape */
+    private final Map<String, Discovery> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * A replayable listing request. GraphQL endpoints carry the operation text, the name of its cursor
+     * variable, the types of its declared variables and the variables the page sent with it; XHR endpoints
+     * are GET URLs that take the cursor as a query parameter.
+     */
+    record Endpoint(String url, String query, String cursorName, Map<String, String> declared, Map<String, Object> variables) {
+        boolean isGraphQl() {
+            return query != null;
+        }
+    }
+
+    /** A discovered endpoint, or a miss that is retried once it expires */
+    private record Discovery(Optional<Endpoint> endpoint, Instant discoveredAt) {
+        boolean isExpired(Duration retry) {
+            return endpoint.isEmpty() && !Instant.now().isBefore(discoveredAt.plus(retry));
+        }
+    }
+
+    public boolean supports(String url) {
+        String host = hostOf(url);
+        if (host == null) return false;
+        for (String configured : hosts) {
+            String suffix = configured.trim().toLowerCase();
+            if (!suffix.isEmpty() && (host.equals(suffix) || host.endsWith("." + suffix))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read up to maxPages API pages for the listing. Returns an empty map when the host has no usable
+     * endpoint or the first request fails, so the caller can fall back to HTML scraping.
+     */
+    public Map<String, ProductInfo> scrape(String listingUrl, int maxPages) {
+        Map<String, ProductInfo> products = new LinkedHashMap<>();
+        String shape = shapeOf(listingUrl);
+        Optional<Endpoint> endpoint = endpointFor(shape, listingUrl);
+        if (endpoint.isEmpty()) {
+            return products;
+        }
+
+        String cursor = null;
+        for (int page = 0; page < maxPages; page++) {
+            EmbeddedJsonExtractor.ApiPage result;
+            try {
+                result = fetchPage(endpoint.get(), listingUrl, cursor);
+            } catch (IOException e) {
+                log.warn("[API] Request {} to {} failed: {}", page + 1, endpoint.get().url(), e.getMessage());
+                if (products.isEmpty()) {
+                    // Stale or wrong endpoint: rediscover on the next scrape
+                    endpoints.remove(shape);
+                }
+                break;
+            }
+
+            int before = products.size();
+            result.products().forEach(products::putIfAbsent);
+            log.info("[API] Page {} of {}: {} products", page + 1, listingUrl, products.size() - before);
+            if (result.nextCursor() == null || result.nextCursor().equals(cursor) || products.size() == before) {
+                break;
+            }
+            cursor = result.nextCursor();
+        }
+
+        log.info("[API] Read {} products for {} via {}", products.size(), listingUrl, endpoint.get().url());
+        return products;
+    }
+
+    private EmbeddedJsonExtractor.ApiPage fetchPage(Endpoint endpoint, String listingUrl, String cursor) throws IOException {
+        Map<String, String> headers = Map.of("Referer", listingUrl);
+        String json;
+        if (endpoint.isGraphQl()) {
+            json = pageFetcher.fetchJson(endpoint.url(), graphQlPayload(endpoint, listingUrl, cursor), headers);
+        } else {
+            String url = endpoint.url();
+            if (cursor != null) {
+                url += (url.contains("?") ? "&" : "?") + endpoint.cursorName() + "="
+                        + URLEncoder.encode(cursor, StandardCharsets.UTF_8);
+            }
+            json = pageFetcher.fetchJson(url, null, headers);
+        }
+        return embeddedJsonExtractor.listingFromApi(json, listingUrl);
+    }
+
+    private String graphQlPayload(Endpoint endpoint, String listingUrl, String cursor) throws JsonProcessingException {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("query", endpoint.query());
+        payload.put("variables", variablesFor(endpoint, listingUrl, cursor));
+        return objectMapper.writeValueAsString(payload);
+    }
+
+    /**
+     * The variables of one request: those the discovery page sent, overridden by the listing URL's query
+     * parameters that name a declared variable, plus the cursor after the first page
+     */
+    private static Map<String, Object> variablesFor(Endpoint endpoint, String listingUrl, String cursor) {
+        Map<String, Object> variables = new LinkedHashMap<>(endpoint.variables());
+        queryParams(listingUrl).forEach((name, values) -> {
+            String type = endpoint.declared().get(name);
+            if (type != null && !name.equals(endpoint.cursorName())) {
+                variables.put(name, typed(type, values));
+            }
+        });
+        variables.remove(endpoint.cursorName());
+        if (cursor != null) variables.put(endpoint.cursorName(), cursor);
+        return variables;
+    }
+
+    private Optional<Endpoint> endpointFor(String shape, String listingUrl) {
+        Discovery cached = endpoints.get(shape);
+        if (cached != null && !cached.isExpired(discoveryRetry)) {
+            return cached.endpoint();
+        }
+        Optional<Endpoint> discovered;
+        try {
+            // The listing page is fetched through the page cache, so an HTML fallback re-reads it for free
+            discovered = discover(pageFetcher.fetch(listingUrl));
+        } catch (IOException e) {
+            log.warn("[API] Could not load {} for endpoint discovery: {}", listingUrl, e.getMessage());
+            return Optional.empty();
+        }
+        discovered.ifPresentOrElse(
+                endpoint -> log.info("[API] Discovered listing endpoint for {}: {} ({})", shape, endpoint.url(),
+                        endpoint.isGraphQl() ? "GraphQL" : "XHR"),
+                () -> log.info("[API] No listing endpoint found in the scripts of {}, retrying in {}", shape, discoveryRetry));
+        endpoints.put(shape, new Discovery(discovered, Instant.now()));
+        return discovered;
+    }
+
+    /**
+     * Find a replayable listing request in the page scripts. A GraphQL operation is only usable when its
+     * text is inlined and it takes a cursor variable; otherwise the first fetch()/api URL is used.
+     * The variables the page sends with the operation are kept so replayed requests select the same listing.
+     */
+    Optional<Endpoint> discover(Document doc) {
+        URI page = URI.create(doc.location());
+        String graphQlUrl = null;
+        String graphQlQuery = null;
+        String graphQlCursor = null;
+        String xhrUrl = null;
+
+        for (Element script : doc.select("script")) {
+            String content = script.data();
+            if (content.isEmpty()) continue;
+
+            if (graphQlUrl == null) {
+                Matcher url = SCRIPT_GRAPHQL_URL.matcher(content);
+                if (url.find()) graphQlUrl = url.group(1);
+            }
+            if (graphQlQuery == null) {
+                Matcher query = SCRIPT_GRAPHQL_QUERY.matcher(content);
+                while (query.find()) {
+                    String text = unescape(query.group(1));
+                    Matcher cursor = GRAPHQL_CURSOR_VARIABLE.matcher(text);
+                    if (cursor.find()) {
+                        graphQlQuery = text;
+                        graphQlCursor = cursor.group(1);
+                        break;
+                    }
+                }
+            }
+            if (xhrUrl == null) {
+                xhrUrl = firstListingUrl(SCRIPT_FETCH_URL.matcher(content));
+                if (xhrUrl == null) xhrUrl = firstListingUrl(SCRIPT_API_URL.matcher(content));
+            }
+        }
+
+        try {
+            if (graphQlUrl != null && graphQlQuery != null) {
+                Map<String, String> declared = declaredVariables(graphQlQuery);
+                return Optional.of(new Endpoint(page.resolve(graphQlUrl).toString(), graphQlQuery, graphQlCursor,
+                        declared, pageVariables(doc, declared)));
+            }
+            if (xhrUrl != null) {
+                return Optional.of(new Endpoint(page.resolve(xhrUrl).toString(), null, DEFAULT_CURSOR_PARAM, Map.of(), Map.of()));
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("[API] Unusable endpoint on {}: {}", page, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /** The first matched URL that is not a tracking or error-reporting endpoint */
+    private static String firstListingUrl(Matcher matcher) {
+        while (matcher.find()) {
+            String url = matcher.group(1);
+            if (!url.contains("sentry") && !url.contains("analytics")) return url;
+        }
+        return null;
+    }
+
+    /** Variable name to GraphQL type, from the operation header */
+    private static Map<String, String> declaredVariables(String query) {
+        int body = query.indexOf('{');
+        Matcher declaration = GRAPHQL_VARIABLE_DECLARATION.matcher(body >= 0 ? query.substring(0, body) : query);
+        Map<String, String> declared = new LinkedHashMap<>();
+        while (declaration.find()) {
+            declared.put(declaration.group(1), declaration.group(2));
+        }
+        return declared;
+    }
+
+    /**
+     * The first variables object in the page scripts (or the Next.js page state) that sets a declared
+     * variable, restricted to the declared ones. JS object literals with unquoted keys are accepted.
+     */
+    private Map<String, Object> pageVariables(Document doc, Map<String, String> declared) {
+        for (Element script : doc.select("script")) {
+            String content = script.data();
+            Matcher start = SCRIPT_GRAPHQL_VARIABLES.matcher(content);
+            while (start.find()) {
+                String literal = objectLiteral(content, start.end() - 1);
+                if (literal == null) continue;
+                Map<String, Object> variables = new LinkedHashMap<>();
+                try {
+                    Map<?, ?> parsed = objectMapper.readerFor(Map.class)
+                            .withFeatures(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES, JsonReadFeature.ALLOW_SINGLE_QUOTES,
+                                    JsonReadFeature.ALLOW_TRAILING_COMMA)
+                            .readValue(literal);
+                    parsed.forEach((name, value) -> {
+                        if (declared.containsKey(name)) variables.put((String) name, value);
+                    });
+                } catch (IOException e) {
+                    log.debug("[API] Unreadable variables object: {}", e.getMessage());
+                }
+                if (!variables.isEmpty()) {
+                    return Collections.unmodifiableMap(variables);
+                }
+            }
+        }
+        return Map.of();
+    }
+
+    /** The balanced {...} starting at the given brace, skipping braces inside string literals */
+    private static String objectLiteral(String text, int open) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') i++;
+                else if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'' || c == '`') {
+                quote = c;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return text.substring(open, i + 1);
+            }
+        }
+        return null;
+    }
+
+    /** A URL query parameter as the declared GraphQL type; list types take every value of the parameter */
+    private static Object typed(String type, List<String> values) {
+        String base = type.replace("!", "");
+        if (base.startsWith("[")) {
+            String element = base.substring(1, base.length() - 1);
+            List<Object> list = new ArrayList<>();
+            values.forEach(value -> list.add(typed(element, List.of(value))));
+            return list;
+        }
+        String value = values.get(0);
+        try {
+            return switch (base) {
+                case "Int" -> Long.valueOf(value);
+                case "Float" -> Double.valueOf(value);
+                case "Boolean" -> Boolean.valueOf(value);
+                default -> value;
+            };
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static Map<String, List<String>> queryParams(String url) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        try {
+            String query = URI.create(url).getRawQuery();
+            if (query == null) return params;
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty()) continue;
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+                String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+                params.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("[API] Unreadable query in {}: {}", url, e.getMessage());
+        }
+        return params;
+    }
+
+    /**
+     * Listings with the same host, path and query parameter names are served by the same operation; only
+     * their parameter values differ
+     */
+    static String shapeOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase() : "";
+            String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+            return host + path + "?" + String.join("&", new TreeSet<>(queryParams(url).keySet()));
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /** Undo the JS string escapes of an inlined query so it is sent as GraphQL text */
+    private static String unescape(String literal) {
+        return literal.replace("\\n", "\n").replace("\\t", " ").replace("\\\"", "\"").replace("\\'", "'");
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
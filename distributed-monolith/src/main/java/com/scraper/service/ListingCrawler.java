@@ -0,0 +1,140 @@
+package com.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs listing-page crawls concurrently on virtual threads.
+ * Pages are scheduled as soon as they are discovered, with a cap on in-flight requests per host.
+ */
+@Component
+@Slf4j
+public class ListingCrawler {
+
+    @Value("${scraper.crawl.max-in-flight-per-host:4}")
+    private int maxInFlightPerHost;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Scrapes one listing page and returns the pagination links found on it
+     */
+    @FunctionalInterface
+    public interface PageTask {
+        List<String> scrape(String pageUrl) throws IOException;
+    }
+
+    /**
+     * Crawl from the seed pages, following pagination links until maxPages pages were scheduled.
+     * Only the calling thread touches the frontier, so page tasks just need a thread-safe result sink.
+     */
+    public void crawl(List<String> seedUrls, int maxPages, PageTask task) {
+        Set<String> scheduled = new HashSet<>();
+        int inFlight = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<List<String>> completion = new ExecutorCompletionService<>(executor);
+
+            for (String url : seedUrls) {
+                if (scheduled.size() >= maxPages) break;
+                if (scheduled.add(url)) {
+                    completion.submit(() -> scrapeWithHostLimit(url, task));
+                    inFlight++;
+                }
+            }
+
+            while (inFlight > 0) {
+                Future<List<String>> done = completion.take();
+                inFlight--;
+
+                List<String> nextPages;
+                try {
+                    nextPages = done.get();
+                } catch (ExecutionException e) {
+                    log.error("Unexpected error in crawl task: {}", e.getCause().getMessage(), e.getCause());
+                    continue;
+                }
+
+                for (String url : nextPages) {
+                    if (scheduled.size() >= maxPages) break;
+                    if (scheduled.add(url)) {
+                        completion.submit(() -> scrapeWithHostLimit(url, task));
+                        inFlight++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Concurrent crawl interrupted after scheduling {} pages", scheduled.size());
+        }
+
+        log.info("Concurrent crawl finished, {} pages scheduled", scheduled.size());
+    }
+
+    /**
+     * Pre-compute the page URLs of a paginated listing so they can be fetched in parallel
+     * instead of waiting for each page's "next" link. Falls back to the starting URL alone.
+     */
+    public List<String> seedPages(String startingUrl, int maxPages) {
+        List<String> seeds = new ArrayList<>();
+        seeds.add(startingUrl);
+
+        String host = hostOf(startingUrl);
+        if (!host.contains("ebay")) {
+            return seeds;
+        }
+
+        try {
+            for (int page = 2; page <= maxPages; page++) {
+                seeds.add(UriComponentsBuilder.fromHttpUrl(startingUrl)
+                        .replaceQueryParam("_pgn", page)
+                        .build(true)
+                        .toUriString());
+            }
+        } catch (Exception e) {
+            log.debug("Could not pre-compute pages for {}: {}", startingUrl, e.getMessage());
+            return List.of(startingUrl);
+        }
+        return seeds;
+    }
+
+    private List<String> scrapeWithHostLimit(String url, PageTask task) throws InterruptedException {
+        Semaphore permits = hostPermits.computeIfAbsent(hostOf(url), h -> new Semaphore(maxInFlightPerHost));
+        permits.acquire();
+        try {
+            return task.scrape(url);
+        } catch (IOException e) {
+            log.error("Error scraping listing page {}: {}", url, e.getMessage(), e);
+            return List.of();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return host != null ? host.toLowerCase() : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.scraper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.PageCapture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.scraper.service.ExtractionPatterns.*;
+
+/**
+ * Diagnostic scans for listing pages whose layout the extractor does not understand: script endpoints,
+ * __NEXT_DATA__ IDs, raw-HTML ID regexes and wrapper samples.
+ * These used to run on every scraped page; now they only run for pages captured on demand or sampled
+ * at scraper.capture.sample-rate, and the evidence is written to disk instead of the log.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListingDiagnostics {
+
+    private static final String SKELETON_CLASS = "AdPhoto_wrapper__skeleton__rHjT7";
+    private static final int MAX_SAMPLE_CHARS = 500;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${scraper.capture.directory:${java.io.tmpdir}/scraper-captures}")
+    private String directory;
+
+    /** Fraction of scraped listing pages captured automatically; 0 disables sampling */
+    @Value("${scraper.capture.sample-rate:0.0}")
+    private double sampleRate;
+
+    public boolean shouldSample() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Run all diagnostic scans on the page and store the HTML and the report under the capture directory
+     */
+    public PageCapture capture(String url, Document doc) throws IOException {
+        String html = doc.html();
+
+        Element adListContainer = doc.selectFirst("div.styles_adlist__3YsgA, div[class*=adlist]");
+        if (adListContainer == null) {
+            adListContainer = doc.selectFirst("div[data-sentry-component=AdList]");
+        }
+        Element scope = adListContainer != null ? adListContainer : doc;
+
+        Elements wrappers = scope.select(AD_WRAPPER);
+        int realWrapperCount = 0;
+        String sampleWrapperHtml = null;
+        for (Element wrapper : wrappers) {
+            if (!wrapper.hasClass(SKELETON_CLASS)) {
+                realWrapperCount++;
+                if (sampleWrapperHtml == null) sampleWrapperHtml = truncate(wrapper.outerHtml());
+            }
+        }
+
+        Elements scripts = doc.select("script");
+        Set<String> apiUrls = new LinkedHashSet<>();
+        Set<String> productIds = new LinkedHashSet<>();
+        List<String> suspectScripts = new ArrayList<>();
+        for (Element script : scripts) {
+            String content = script.html();
+            Matcher apiMatcher = SCRIPT_API_URL.matcher(content);
+            while (apiMatcher.find()) {
+                String apiUrl = apiMatcher.group(1);
+                if (!apiUrl.contains("sentry") && !apiUrl.contains("analytics")) apiUrls.add(apiUrl);
+            }
+            collect(SCRIPT_FETCH_URL, content, apiUrls);
+            collect(SCRIPT_ID, content, productIds);
+            collect(SCRIPT_ADID, content, productIds);
+            if (content.contains("__NEXT_DATA__") || content.contains("window.__")) {
+                suspectScripts.add(truncate(content));
+                collect(SCRIPT_AD_LINK, content, productIds);
+            }
+        }
+
+        Set<String> nextDataIds = new LinkedHashSet<>();
+        Element nextDataScript = doc.selectFirst("script:contains(__NEXT_DATA__)");
+        if (nextDataScript != null) {
+            collect(NEXT_DATA_ID, nextDataScript.html(), nextDataIds);
+        }
+        productIds.addAll(nextDataIds);
+
+        for (Pattern pattern : List.of(AD_PATH_ID_IN_HTML, JSON_ADID, DATA_ADID_ATTR, DATA_ID_ATTR, AD_HREF_ID)) {
+            collect(pattern, html, productIds);
+        }
+
+        int roOccurrences = 0;
+        for (int i = html.indexOf("/ro/"); i != -1; i = html.indexOf("/ro/", i + 4)) {
+            roOccurrences++;
+        }
+
+        Instant now = Instant.now();
+        String baseName = now.toEpochMilli() + "-" + Integer.toHexString(url.hashCode());
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        Path htmlFile = dir.resolve(baseName + ".html");
+        Path reportFile = dir.resolve(baseName + ".json");
+
+        PageCapture capture = PageCapture.builder()
+                .url(url)
+                .capturedAt(now.toString())
+                .htmlLength(html.length())
+                .adListContainerFound(adListContainer != null)
+                .wrapperCount(wrappers.size())
+                .skeletonCount(wrappers.size() - realWrapperCount)
+                .realWrapperCount(realWrapperCount)
+                .dataIndexCount(doc.select("div[data-index]").size())
+                .adPhotoClassCount(doc.select("div[class*=AdPhoto]").size())
+                .dataIdCount(scope.select(AD_FAVORITE).size())
+                .dataAdidCount(scope.select(AD_WITH_ID).size())
+                .scriptCount(scripts.size())
+                .apiUrls(new ArrayList<>(apiUrls))
+                .nextDataIds(new ArrayList<>(nextDataIds))
+                .productIds(new ArrayList<>(productIds))
+                .roOccurrences(roOccurrences)
+                .sampleWrapperHtml(sampleWrapperHtml)
+                .suspectScripts(suspectScripts)
+                .htmlFile(htmlFile.toString())
+                .reportFile(reportFile.toString())
+                .build();
+
+        Files.writeString(htmlFile, html, StandardCharsets.UTF_8);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), capture);
+        log.info("Captured {} ({} wrappers, {} product IDs) to {}", url, wrappers.size(), productIds.size(), reportFile);
+        return capture;
+    }
+
+    /**
+     * Capture a page that was sampled during a scrape; failures are logged and never affect the scrape
+     */
+    public void captureSampled(String url, Document doc) {
+        try {
+            capture(url, doc);
+        } catch (Exception e) {
+            log.warn("Could not capture sampled page {}: {}", url, e.getMessage());
+        }
+    }
+
+    private static void collect(Pattern pattern, String input, Set<String> into) {
+        Matcher matcher = pattern.matcher(input);
+        while (matcher.find()) {
+            into.add(matcher.group(1));
+        }
+    }
+
+    private static String truncate(String s) {
+        return s.length() > MAX_SAMPLE_CHARS ? s.substring(0, MAX_SAMPLE_CHARS) : s;
+    }
+}
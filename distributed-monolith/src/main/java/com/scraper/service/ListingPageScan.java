@@ -0,0 +1,116 @@
+package com.scraper.service;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single traversal of an eBay listing page that classifies every node the extractor may need:
+ * item cards of both layouts, item links, price nodes and pagination links.
+ * The layout fallbacks then work on these lists instead of re-walking the document with select().
+ */
+class ListingPageScan implements NodeVisitor {
+
+    /** Which part of the page the products were taken from */
+    enum Layout { BROWSE_CARDS, SEARCH_ITEMS, ITEM_LINKS, NONE }
+
+    /** How far above a bare item link a price-bearing container is looked for */
+    private static final int MAX_CONTAINER_DEPTH = 6;
+
+    private final List<Element> browseCards = new ArrayList<>();
+    private final List<Element> searchItems = new ArrayList<>();
+    private final List<Element> itemLinks = new ArrayList<>();
+    private final List<Element> nextLinks = new ArrayList<>();
+    private final Map<Element, Element> cardOfLink = new IdentityHashMap<>();
+    private final Set<Element> priceContainers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Element currentCard;
+
+    static ListingPageScan of(Element root) {
+        ListingPageScan scan = new ListingPageScan();
+        NodeTraversor.traverse(scan, root);
+        return scan;
+    }
+
+    @Override
+    public void head(Node node, int depth) {
+        if (!(node instanceof Element el)) return;
+
+        switch (el.normalName()) {
+            case "li" -> {
+                if (el.hasClass("brwrvr__item-card")) {
+                    browseCards.add(el);
+                    currentCard = el;
+                } else if (el.hasClass("s-item")) {
+                    searchItems.add(el);
+                    currentCard = el;
+                }
+            }
+            case "a" -> classifyLink(el);
+            default -> { }
+        }
+
+        if (el.hasClass("s-item__price") || el.hasClass("bsig__price")) {
+            // Every ancestor of a price node is a candidate container for a bare item link
+            Element p = el;
+            while (p != null && priceContainers.add(p)) {
+                p = p.parent();
+            }
+        }
+    }
+
+    @Override
+    public void tail(Node node, int depth) {
+        if (node == currentCard) currentCard = null;
+    }
+
+    private void classifyLink(Element a) {
+        if (!a.hasAttr("href")) return;
+        String href = a.attr("href");
+        if (href.contains("/itm/") || href.contains("/p/")) {
+            itemLinks.add(a);
+            if (currentCard != null) cardOfLink.put(a, currentCard);
+        }
+        if (a.attr("rel").equalsIgnoreCase("next")
+                || a.attr("aria-label").equalsIgnoreCase("Next page")
+                || a.hasClass("pagination__next")) {
+            nextLinks.add(a);
+        }
+    }
+
+    List<Element> browseCards() {
+        return browseCards;
+    }
+
+    List<Element> searchItems() {
+        return searchItems;
+    }
+
+    List<Element> itemLinks() {
+        return itemLinks;
+    }
+
+    List<Element> nextLinks() {
+        return nextLinks;
+    }
+
+    /**
+     * The item card around a link, or the nearest ancestor (up to six levels) that holds a price
+     */
+    Element containerOf(Element link) {
+        Element card = cardOfLink.get(link);
+        if (card != null) return card;
+        Element p = link.parent();
+        for (int depth = 0; p != null && depth < MAX_CONTAINER_DEPTH; depth++, p = p.parent()) {
+            if (priceContainers.contains(p)) return p;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,311 @@
+package com.scraper.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Shared HTTP client for all page fetches.
+ * One java.net.http.HttpClient is kept for the lifetime of the application so connections
+ * stay alive between requests, HTTP/2 streams are multiplexed per host and TLS sessions are resumed.
+ * Every request goes through the per-host {@link HostRateLimiter}; unchanged pages are served from
+ * the {@link HttpPageCache}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PageFetcher {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_BODY_SIZE = 10 * 1024 * 1024;
+
+    private static final Map<String, String> DEFAULT_HEADERS = new LinkedHashMap<>();
+    static {
+        DEFAULT_HEADERS.put("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
+        DEFAULT_HEADERS.put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7");
+        DEFAULT_HEADERS.put("Accept-Language", "ro-RO,ro;q=0.9,en-US;q=0.8,en;q=0.7,ru;q=0.6");
+        // Only encodings we can decode without extra libraries
+        DEFAULT_HEADERS.put("Accept-Encoding", "gzip, deflate");
+        DEFAULT_HEADERS.put("Upgrade-Insecure-Requests", "1");
+        DEFAULT_HEADERS.put("Sec-Fetch-Dest", "document");
+        DEFAULT_HEADERS.put("Sec-Fetch-Mode", "navigate");
+        DEFAULT_HEADERS.put("Sec-Fetch-Site", "none");
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(TIMEOUT)
+            .build();
+
+    private final HostRateLimiter rateLimiter;
+    private final HttpPageCache pageCache;
+
+    /**
+     * Fetch a page and parse it into a Document
+     */
+    public Document fetch(String url) throws IOException {
+        return fetch(url, Map.of());
+    }
+
+    /**
+     * Fetch a page with additional request headers (e.g. Referer) and parse it into a Document
+     */
+    public Document fetch(String url, Map<String, String> extraHeaders) throws IOException {
+        Body body = open(url, extraHeaders);
+        try (InputStream in = body.in()) {
+            return Jsoup.parse(in, body.charset(), body.baseUri());
+        }
+    }
+
+    /**
+     * Fetch a page for incremental parsing: elements can be consumed as soon as they are complete.
+     * Closing the parser stops reading the body, so callers can bail out once they have what they need.
+     */
+    public StreamParser stream(String url, Map<String, String> extraHeaders) throws IOException {
+        Body body = open(url, extraHeaders);
+        Charset charset = StandardCharsets.UTF_8;
+        try {
+            if (body.charset() != null) charset = Charset.forName(body.charset());
+        } catch (IllegalArgumentException ignore) {
+            // Unknown charset label, keep UTF-8
+        }
+        return new StreamParser(Parser.htmlParser())
+                .parse(new InputStreamReader(body.in(), charset), body.baseUri());
+    }
+
+    /**
+     * Call a JSON endpoint (XHR or GraphQL) and return the response body.
+     * A null payload sends a GET; otherwise the payload is POSTed as application/json.
+     * Responses are small and change with every cursor, so they bypass the page cache.
+     */
+    public String fetchJson(String url, String payload, Map<String, String> extraHeaders) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT);
+        DEFAULT_HEADERS.forEach(request::header);
+        request.setHeader("Accept", "application/json");
+        request.setHeader("Sec-Fetch-Dest", "empty");
+        request.setHeader("Sec-Fetch-Mode", "cors");
+        request.setHeader("Sec-Fetch-Site", "same-origin");
+        extraHeaders.forEach(request::setHeader);
+        if (payload == null) {
+            request.GET();
+        } else {
+            request.setHeader("Content-Type", "application/json");
+            request.POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8));
+        }
+
+        HttpResponse<InputStream> response = send(request.build());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            response.body().close();
+            throw new HttpStatusException("HTTP error fetching JSON", response.statusCode(), url);
+        }
+
+        Charset charset = StandardCharsets.UTF_8;
+        try {
+            String name = response.headers().firstValue("Content-Type").map(PageFetcher::charsetOf).orElse(null);
+            if (name != null) charset = Charset.forName(name);
+        } catch (IllegalArgumentException ignore) {
+            // Unknown charset label, keep UTF-8
+        }
+        try (InputStream in = bounded(decode(response))) {
+            return new String(in.readAllBytes(), charset);
+        }
+    }
+
+    private record Body(InputStream in, String charset, String baseUri) {}
+
+    /**
+     * Open the page body, from the cache when it is still fresh or the origin answers 304
+     */
+    private Body open(String url, Map<String, String> extraHeaders) throws IOException {
+        Optional<HttpPageCache.Entry> cached = pageCache.lookup(url);
+        if (cached.isPresent() && pageCache.isFresh(cached.get())) {
+            log.debug("Serving {} from cache (TTL)", url);
+            return openCached(cached.get());
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .GET();
+        DEFAULT_HEADERS.forEach(request::header);
+        extraHeaders.forEach(request::setHeader);
+        cached.ifPresent(entry -> {
+            if (entry.etag() != null) request.setHeader("If-None-Match", entry.etag());
+            if (entry.lastModified() != null) request.setHeader("If-Modified-Since", entry.lastModified());
+        });
+
+        HttpResponse<InputStream> response;
+        try {
+            response = send(request.build());
+        } catch (IOException e) {
+            if (cached.isPresent()) cached.get().close();
+            throw e;
+        }
+
+        if (response.statusCode() == 304 && cached.isPresent()) {
+            response.body().close();
+            log.debug("Serving {} from cache (304 Not Modified)", url);
+            return openCached(cached.get());
+        }
+        if (cached.isPresent()) cached.get().close();
+
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            response.body().close();
+            throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+        }
+
+        String charset = response.headers().firstValue("Content-Type")
+                .map(PageFetcher::charsetOf)
+                .orElse(null);
+        // Base URI is the final URL after redirects so absUrl() resolves correctly
+        String baseUri = response.uri().toString();
+        log.debug("Fetched {} ({}, {})", baseUri, response.statusCode(), response.version());
+        // Bounded outside the cache: a body cut off at the limit is not read to its end, so it is not cached
+        return new Body(bounded(pageCache.store(url, response, decode(response))), charset, baseUri);
+    }
+
+    private Body openCached(HttpPageCache.Entry entry) {
+        String charset = entry.contentType() != null ? charsetOf(entry.contentType()) : null;
+        return new Body(entry.body(), charset, entry.finalUrl());
+    }
+
+    /**
+     * Send once the host's rate limiter allows it and report the outcome back to the limiter.
+     * Callers block until the response headers arrive; this is deliberate, since every caller parses the
+     * body as a stream. The rate limiter's delay runs on a timer and the exchange on the HttpClient's
+     * executor, so with spring.threads.virtual.enabled (and the crawlers' own virtual threads) the wait
+     * only parks a virtual thread and no platform thread sleeps through it.
+     * An interrupt cancels both the token wait and an exchange already in flight.
+     */
+    private HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        String host = request.uri().getHost();
+        AtomicReference<CompletableFuture<HttpResponse<InputStream>>> exchange = new AtomicReference<>();
+        CompletableFuture<HttpResponse<InputStream>> aborted = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<InputStream>> pending = rateLimiter.acquire(host)
+                .thenCompose(ignored -> {
+                    long start = System.nanoTime();
+                    CompletableFuture<HttpResponse<InputStream>> sent =
+                            client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+                    if (!exchange.compareAndSet(null, sent)) {
+                        // The caller was interrupted while this request was being started
+                        sent.cancel(true);
+                    }
+                    return sent.whenComplete((response, error) -> {
+                        if (error instanceof CancellationException) {
+                            // Aborted by the caller, says nothing about the host
+                        } else if (error != null) {
+                            rateLimiter.onFailure(host);
+                        } else {
+                            rateLimiter.onResponse(host, response.statusCode(),
+                                    Duration.ofNanos(System.nanoTime() - start),
+                                    response.headers().firstValue("Retry-After"));
+                        }
+                    });
+                });
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            // Cancelling the composed future does not reach the exchange; cancel(true) on the
+            // sendAsync future aborts the request, and a response that raced in is released
+            CompletableFuture<HttpResponse<InputStream>> sent = exchange.getAndSet(aborted);
+            if (sent != null && !sent.cancel(true)) {
+                sent.thenAccept(PageFetcher::discard);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + request.uri());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException("Error fetching " + request.uri() + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    private static void discard(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException ignore) {
+            // Connection is being torn down anyway
+        }
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        InputStream body = response.body();
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("").trim().toLowerCase();
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body);
+            case "deflate" -> new InflaterInputStream(body);
+            default -> body;
+        };
+    }
+
+    private static InputStream bounded(InputStream body) {
+        return new BoundedInputStream(body, MAX_BODY_SIZE);
+    }
+
+    private static String charsetOf(String contentType) {
+        for (String part : contentType.split(";")) {
+            String p = part.trim();
+            if (p.toLowerCase().startsWith("charset=")) {
+                return p.substring("charset=".length()).replace("\"", "").trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops reading after the limit so oversized pages are truncated like Jsoup's maxBodySize
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(buf, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+    }
+}
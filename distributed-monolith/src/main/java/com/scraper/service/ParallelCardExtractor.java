@@ -0,0 +1,67 @@
+package com.scraper.service;
+
+import com.scraper.dto.ProductInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Extracts the item cards of one parsed listing page, in parallel on a work-stealing pool once the page
+ * has enough cards to make it worthwhile.
+ * Cards are independent and only read from the document; results are merged in document order with
+ * putIfAbsent, so the map ends up exactly as the sequential loop would leave it.
+ */
+@Component
+@Slf4j
+public class ParallelCardExtractor {
+
+    /** Pages with fewer cards are extracted on the calling thread */
+    @Value("${scraper.listing.parallel-threshold:64}")
+    private int parallelThreshold;
+
+    /** Worker count of the extraction pool; 0 uses one per available processor */
+    @Value("${scraper.listing.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void start() {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // A dedicated pool keeps card extraction from competing with other users of the common pool
+        pool = new ForkJoinPool(workers);
+        log.info("Card extraction pool started with {} workers (parallel from {} cards)", workers, parallelThreshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdown();
+    }
+
+    /**
+     * Extract every card and add the results to the map in card order; null results are skipped
+     */
+    public <T> void extractInto(List<T> cards, Function<T, Map.Entry<String, ProductInfo>> extractor,
+                                Map<String, ProductInfo> products) {
+        List<Map.Entry<String, ProductInfo>> extracted;
+        if (cards.size() < parallelThreshold || parallelThreshold <= 0) {
+            extracted = cards.stream().map(extractor).toList();
+        } else {
+            // Parallel streams run their tasks in the pool they were started from
+            extracted = pool.submit(() -> cards.parallelStream().map(extractor).toList()).join();
+        }
+
+        for (Map.Entry<String, ProductInfo> entry : extracted) {
+            if (entry != null) {
+                products.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.scraper.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes free-text prices such as "$1,299.99", "US $23.45", "12 500 €", "1.234,56 EUR" or "5000 eur"
+ * into an amount in minor units plus an ISO 4217 currency code.
+ * Ranges ("$20.00 to $35.00") keep their lower bound; text without a recognizable currency or amount
+ * (e.g. "Negociabil") yields nothing.
+ */
+public final class PriceParser {
+
+    private PriceParser() {
+    }
+
+    public record Price(long minorUnits, String currency) {}
+
+    /** First number in the text: space-grouped ("12 500,50") or with '.', ',' and ' separators ("1,299.99") */
+    private static final Pattern AMOUNT = Pattern.compile(
+            "\\d{1,3}(?:[ \\u00a0\\u202f']\\d{3})+(?:[.,]\\d+)?|\\d[\\d.,']*");
+    private static final Pattern ISO_CODE = Pattern.compile("\\b([A-Za-z]{3})\\b");
+
+    /** Symbols and local names, checked in order so "US $" wins over "$" */
+    private static final Map<String, String> SYMBOLS = new LinkedHashMap<>();
+    static {
+        SYMBOLS.put("US $", "USD");
+        SYMBOLS.put("C $", "CAD");
+        SYMBOLS.put("AU $", "AUD");
+        SYMBOLS.put("$", "USD");
+        SYMBOLS.put("€", "EUR");
+        SYMBOLS.put("£", "GBP");
+        SYMBOLS.put("¥", "JPY");
+        SYMBOLS.put("lei", "MDL");
+        SYMBOLS.put("леев", "MDL");
+        SYMBOLS.put("лей", "MDL");
+    }
+
+    public static Optional<Price> parse(String text) {
+        if (text == null || text.isBlank()) return Optional.empty();
+
+        String currency = currencyOf(text);
+        if (currency == null) return Optional.empty();
+
+        Matcher m = AMOUNT.matcher(text);
+        if (!m.find()) return Optional.empty();
+        BigDecimal amount = amountOf(m.group());
+        if (amount == null) return Optional.empty();
+
+        try {
+            return Optional.of(new Price(toMinorUnits(amount, currency), currency));
+        } catch (ArithmeticException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Minor units of an amount given in major units (e.g. 12.5 USD -> 1250)
+     */
+    public static long toMinorUnits(BigDecimal amount, String currency) {
+        int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+        return amount.movePointRight(Math.max(digits, 0)).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static String currencyOf(String text) {
+        for (Map.Entry<String, String> symbol : SYMBOLS.entrySet()) {
+            if (text.contains(symbol.getKey())) return symbol.getValue();
+        }
+        Matcher code = ISO_CODE.matcher(text);
+        while (code.find()) {
+            String candidate = code.group(1).toUpperCase(Locale.ROOT);
+            try {
+                Currency.getInstance(candidate);
+                return candidate;
+            } catch (IllegalArgumentException ignore) {
+                // Not a currency code, keep looking
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a number whose grouping and decimal separators vary by locale: the last '.' or ',' is the decimal
+     * point when both occur; a lone separator followed by exactly three digits is grouping
+     */
+    static BigDecimal amountOf(String raw) {
+        String s = raw.replaceAll("[\\s\\u00a0\\u202f']", "");
+        while (!s.isEmpty() && !Character.isDigit(s.charAt(s.length() - 1))) {
+            s = s.substring(0, s.length() - 1);
+        }
+        if (s.isEmpty()) return null;
+
+        int lastDot = s.lastIndexOf('.');
+        int lastComma = s.lastIndexOf(',');
+        String normalized;
+        if (lastDot >= 0 && lastComma >= 0) {
+            char decimal = lastDot > lastComma ? '.' : ',';
+            char grouping = decimal == '.' ? ',' : '.';
+            normalized = s.replace(String.valueOf(grouping), "").replace(decimal, '.');
+        } else if (lastDot >= 0 || lastComma >= 0) {
+            char sep = lastDot >= 0 ? '.' : ',';
+            int last = Math.max(lastDot, lastComma);
+            boolean grouping = s.length() - last - 1 == 3 || s.indexOf(sep) != last;
+            normalized = grouping ? s.replace(String.valueOf(sep), "") : s.replace(sep, '.');
+        } else {
+            normalized = s;
+        }
+        try {
+            return new BigDecimal(normalized);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
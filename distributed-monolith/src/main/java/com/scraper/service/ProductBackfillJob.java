@@ -0,0 +1,42 @@
+package com.scraper.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the normalized price/condition/brand columns of existing rows once the application is up,
+ * so older data can be filtered and sorted through the indexes too
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBackfillJob {
+
+    private final ProductService productService;
+
+    @Value("${scraper.backfill.on-startup:true}")
+    private boolean onStartup;
+
+    @Value("${scraper.backfill.chunk-size:500}")
+    private int chunkSize;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!onStartup) return;
+        try {
+            productService.backfillNormalizedColumns(chunkSize);
+        } catch (Exception e) {
+            log.error("Backfill of normalized product columns failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public int run() {
+        return productService.backfillNormalizedColumns(chunkSize);
+    }
+}
@@ -0,0 +1,161 @@
+package com.scraper.service;
+
+import com.scraper.entity.ProductDetails;
+import com.scraper.repository.ProductDetailsUpsert;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk ingest of product rows through PostgreSQL COPY: each chunk is streamed as CSV into a session-local
+ * staging table and merged into product_details with one INSERT ... SELECT ... ON CONFLICT (url) DO UPDATE,
+ * which changes a stored row only when a field differs, like the single-row and batched upserts.
+ * IDs are reserved from product_details_seq in whole blocks, the same way Hibernate's pooled optimizer
+ * does, so rows loaded here and rows saved through JPA never collide.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkLoader {
+
+    private static final String COLUMNS = "id, url, title, description, price, price_minor, price_currency, "
+            + "item_condition, brand, location, ad_info, general_info, features";
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE IF NOT EXISTS product_details_staging ("
+            + "id BIGINT, url TEXT, title TEXT, description TEXT, price VARCHAR(255), price_minor BIGINT, "
+            + "price_currency VARCHAR(3), item_condition VARCHAR(255), brand VARCHAR(255), location VARCHAR(255), "
+            + "ad_info JSONB, general_info JSONB, features JSONB) ON COMMIT DELETE ROWS";
+
+    private static final String COPY = "COPY product_details_staging (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE = "INSERT INTO product_details (" + COLUMNS + ", created_at) "
+            + "SELECT " + COLUMNS + ", now() FROM product_details_staging "
+            + "ON CONFLICT (url) DO UPDATE SET title = EXCLUDED.title, description = EXCLUDED.description, "
+            + "price = EXCLUDED.price, price_minor = EXCLUDED.price_minor, price_currency = EXCLUDED.price_currency, "
+            + "item_condition = EXCLUDED.item_condition, brand = EXCLUDED.brand, location = EXCLUDED.location, "
+            + "ad_info = EXCLUDED.ad_info, general_info = EXCLUDED.general_info, features = EXCLUDED.features, "
+            // Listing card data: a changed row is no longer verified
+            + "verified_at = NULL "
+            + "WHERE (product_details.title, product_details.description, product_details.price, "
+            + "product_details.price_minor, product_details.price_currency, product_details.item_condition, "
+            + "product_details.brand, product_details.location, product_details.ad_info, "
+            + "product_details.general_info, product_details.features) "
+            + "IS DISTINCT FROM (EXCLUDED.title, EXCLUDED.description, EXCLUDED.price, EXCLUDED.price_minor, "
+            + "EXCLUDED.price_currency, EXCLUDED.item_condition, EXCLUDED.brand, EXCLUDED.location, "
+            + "EXCLUDED.ad_info, EXCLUDED.general_info, EXCLUDED.features) "
+            + "RETURNING url, (xmax = 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Load the rows in chunks of chunkSize, one transaction per chunk; returns the outcome per URL.
+     * URLs must be distinct.
+     */
+    public Map<String, ProductDetailsUpsert.Outcome> load(List<ProductDetails> rows, int chunkSize) {
+        int size = Math.max(1, chunkSize);
+        Map<String, ProductDetailsUpsert.Outcome> outcomes = new HashMap<>();
+        for (int i = 0; i < rows.size(); i += size) {
+            List<ProductDetails> chunk = rows.subList(i, Math.min(i + size, rows.size()));
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> loadChunk(connection, chunk, outcomes)));
+            // Rows that already held the same values are not returned
+            chunk.forEach(row -> outcomes.putIfAbsent(row.getUrl(), ProductDetailsUpsert.Outcome.UNCHANGED));
+        }
+        log.info("Bulk loaded {} rows", rows.size());
+        return outcomes;
+    }
+
+    private Void loadChunk(Connection connection, List<ProductDetails> chunk,
+                           Map<String, ProductDetailsUpsert.Outcome> outcomes) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING);
+        }
+
+        Deque<Long> ids = reserveIds(chunk.size());
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pg, COPY, 1 << 16), StandardCharsets.UTF_8))) {
+            for (ProductDetails row : chunk) {
+                writeRow(out, ids.removeFirst(), row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("COPY into product_details_staging failed", e);
+        }
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(MERGE)) {
+            while (rs.next()) {
+                outcomes.put(rs.getString(1), rs.getBoolean(2)
+                        ? ProductDetailsUpsert.Outcome.INSERTED : ProductDetailsUpsert.Outcome.UPDATED);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Enough sequence blocks for count rows; each nextval returns the last ID of a fresh block
+     */
+    private Deque<Long> reserveIds(int count) {
+        int blocks = (count + ProductDetails.ID_ALLOCATION_SIZE - 1) / ProductDetails.ID_ALLOCATION_SIZE;
+        List<Long> blockEnds = jdbcTemplate.queryForList(
+                "SELECT nextval('product_details_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        Deque<Long> ids = new ArrayDeque<>(blocks * ProductDetails.ID_ALLOCATION_SIZE);
+        for (long end : blockEnds) {
+            for (long id = end - ProductDetails.ID_ALLOCATION_SIZE + 1; id <= end; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static void writeRow(Writer out, long id, ProductDetails row) throws IOException {
+        out.write(Long.toString(id));
+        writeField(out, row.getUrl());
+        writeField(out, row.getTitle());
+        writeField(out, row.getDescription());
+        writeField(out, row.getPrice());
+        writeField(out, row.getPriceMinor() != null ? row.getPriceMinor().toString() : null);
+        writeField(out, row.getPriceCurrency());
+        writeField(out, row.getItemCondition());
+        writeField(out, row.getBrand());
+        writeField(out, row.getLocation());
+        // JSONB columns take the ObjectMapper output as is
+        writeField(out, row.getAdInfo());
+        writeField(out, row.getGeneralInfo());
+        writeField(out, row.getFeatures());
+        out.write('\n');
+    }
+
+    /**
+     * CSV field: null stays unquoted (NULL), everything else is quoted with embedded quotes doubled
+     */
+    private static void writeField(Writer out, String value) throws IOException {
+        out.write(',');
+        if (value == null) return;
+        out.write('"');
+        out.write(value.replace("\u0000", "").replace("\"", "\"\""));
+        out.write('"');
+    }
+}
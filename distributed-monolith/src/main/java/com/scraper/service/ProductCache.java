@@ -0,0 +1,352 @@
+package com.scraper.service;
+
+import com.scraper.entity.ProductDetails;
+import com.scraper.repository.ProductDetailsRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache of stored products by URL and by ID, bounded by the estimated heap size of the rows.
+ * Admission follows W-TinyLFU: new rows enter a small LRU window; a row leaving the window only displaces
+ * a row of the main area (probation, then protected segment) when a frequency sketch has seen it more
+ * often, so one-off lookups cannot flush the products that are read again and again.
+ * Rows are invalidated when ProductService writes them. Each invalidation bumps a generation counter of the
+ * URL's stripe, and a row read from the database is only cached if that counter did not move during the
+ * read, so a write landing between the read and the put cannot leave the old row cached.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCache {
+
+    /** Share of the capacity given to the admission window and, of the rest, to the protected segment */
+    private static final double WINDOW_SHARE = 0.01;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    /** Generation counters are kept per stripe of URL hashes rather than per URL, so they take constant memory */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ProductDetailsRepository repository;
+
+    /** Upper bound on the estimated size of cached rows; 0 disables the cache */
+    @Value("${scraper.product-cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    /** A product as read from the database, and when its data was last confirmed against the origin */
+    public record Lookup(ProductDetails product, Instant verifiedAt) {}
+
+    public record Stats(long hits, long misses, long evictions, double hitRatio, int size, long weightBytes,
+                        long maxWeightBytes) {}
+
+    private static final class Node {
+        final ProductDetails product;
+        final Instant verifiedAt;
+        final long weight;
+
+        Node(ProductDetails product, Instant verifiedAt) {
+            this.product = product;
+            this.verifiedAt = verifiedAt;
+            this.weight = weightOf(product);
+        }
+    }
+
+    private final Map<String, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Node> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Node> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, String> urlById = new HashMap<>();
+    private final long[] generations = new long[GENERATION_STRIPES];
+    /** All invalidations so far; guards loads by ID, whose URL is unknown until the row is read */
+    private long invalidations;
+
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private long windowMax;
+    private long mainMax;
+    private long protectedMax;
+
+    private FrequencySketch sketch;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    @PostConstruct
+    void init() {
+        long total = maxSize.toBytes();
+        windowMax = (long) (total * WINDOW_SHARE);
+        mainMax = total - windowMax;
+        protectedMax = (long) (mainMax * PROTECTED_SHARE);
+        // Roughly one counter per cacheable row of 2 KB
+        sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(1024, total / 2048)));
+        log.info("Product cache sized to {} bytes ({} window, {} protected)", total, windowMax, protectedMax);
+    }
+
+    /**
+     * The stored product with this URL, from the cache or else the database
+     */
+    public Optional<Lookup> getByUrl(String url) {
+        Lookup cached = get(url);
+        if (cached != null) return Optional.of(cached);
+        long generation = generation(url);
+        return repository.findByUrl(url).map(product -> load(product, url, generation));
+    }
+
+    /**
+     * The stored product with this ID, from the cache or else the database
+     */
+    public Optional<ProductDetails> getById(long id) {
+        String url;
+        long generation;
+        synchronized (this) {
+            url = urlById.get(id);
+            if (url == null) misses++;
+            generation = invalidations;
+        }
+        Lookup cached = url != null ? get(url) : null;
+        if (cached != null) return Optional.of(cached.product());
+        return repository.findById(id).map(product -> load(product, null, generation).product());
+    }
+
+    public synchronized void invalidate(String url) {
+        remove(url);
+        generations[stripeOf(url)]++;
+        invalidations++;
+    }
+
+    public synchronized Stats stats() {
+        long lookups = hits + misses;
+        return new Stats(hits, misses, evictions, lookups == 0 ? 0.0 : (double) hits / lookups,
+                window.size() + probation.size() + protectedSegment.size(),
+                windowWeight + probationWeight + protectedWeight, maxSize.toBytes());
+    }
+
+    /**
+     * Cache a row read from the database unless it was invalidated during the read: generation is the URL's
+     * stripe counter for loads by URL (key set), or the total invalidation count for loads by ID (key null)
+     */
+    private Lookup load(ProductDetails product, String key, long generation) {
+        Instant verifiedAt = verifiedAtOf(product);
+        synchronized (this) {
+            if (generation(key) == generation) {
+                put(product.getUrl(), new Node(copy(product), verifiedAt));
+            }
+        }
+        return new Lookup(product, verifiedAt);
+    }
+
+    private synchronized long generation(String key) {
+        return key != null ? generations[stripeOf(key)] : invalidations;
+    }
+
+    private static int stripeOf(String url) {
+        return Math.floorMod(url.hashCode(), GENERATION_STRIPES);
+    }
+
+    /**
+     * Only rows extracted from the product's own page carry verified_at; rows known only from listing cards
+     * were never verified
+     */
+    private static Instant verifiedAtOf(ProductDetails product) {
+        return product.getVerifiedAt() != null
+                ? product.getVerifiedAt().atZone(ZoneId.systemDefault()).toInstant() : Instant.EPOCH;
+    }
+
+    private synchronized Lookup get(String url) {
+        if (mainMax <= 0) return null;
+        sketch.increment(url);
+        Node node = window.get(url);
+        if (node == null) {
+            node = probation.remove(url);
+            if (node != null) {
+                // Second hit: promote, demoting the protected segment's least recent rows to probation
+                probationWeight -= node.weight;
+                protectedSegment.put(url, node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMax && protectedSegment.size() > 1) {
+                    Map.Entry<String, Node> eldest = removeEldest(protectedSegment);
+                    protectedWeight -= eldest.getValue().weight;
+                    probation.put(eldest.getKey(), eldest.getValue());
+                    probationWeight += eldest.getValue().weight;
+                }
+            } else {
+                node = protectedSegment.get(url);
+            }
+        }
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new Lookup(copy(node.product), node.verifiedAt);
+    }
+
+    private synchronized void put(String url, Node node) {
+        if (mainMax <= 0) return;
+        remove(url);
+        window.put(url, node);
+        windowWeight += node.weight;
+        if (node.product.getId() != null) urlById.put(node.product.getId(), url);
+
+        while (windowWeight > windowMax && !window.isEmpty()) {
+            Map.Entry<String, Node> candidate = removeEldest(window);
+            windowWeight -= candidate.getValue().weight;
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * Move a row leaving the window into probation if it fits, or if it is used more often than each row
+     * that would have to make room for it
+     */
+    private void admit(String url, Node candidate) {
+        if (candidate.weight > mainMax) {
+            evict(url, candidate);
+            return;
+        }
+        int candidateFrequency = sketch.frequency(url);
+        while (probationWeight + protectedWeight + candidate.weight > mainMax) {
+            Map<String, Node> segment = !probation.isEmpty() ? probation : protectedSegment;
+            Map.Entry<String, Node> victim = segment.entrySet().iterator().next();
+            if (candidateFrequency <= sketch.frequency(victim.getKey())) {
+                evict(url, candidate);
+                return;
+            }
+            segment.remove(victim.getKey());
+            if (segment == probation) probationWeight -= victim.getValue().weight;
+            else protectedWeight -= victim.getValue().weight;
+            evict(victim.getKey(), victim.getValue());
+        }
+        probation.put(url, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    private void evict(String url, Node node) {
+        evictions++;
+        if (node.product.getId() != null && url.equals(urlById.get(node.product.getId()))) {
+            urlById.remove(node.product.getId());
+        }
+    }
+
+    private void remove(String url) {
+        Node node = window.remove(url);
+        if (node != null) windowWeight -= node.weight;
+        if (node == null && (node = probation.remove(url)) != null) probationWeight -= node.weight;
+        if (node == null && (node = protectedSegment.remove(url)) != null) protectedWeight -= node.weight;
+        if (node != null && node.product.getId() != null) urlById.remove(node.product.getId());
+    }
+
+    private static Map.Entry<String, Node> removeEldest(Map<String, Node> segment) {
+        Iterator<Map.Entry<String, Node>> it = segment.entrySet().iterator();
+        Map.Entry<String, Node> eldest = it.next();
+        it.remove();
+        return Map.entry(eldest.getKey(), eldest.getValue());
+    }
+
+    /**
+     * Rough heap footprint: object overhead plus two bytes per character of every text column
+     */
+    private static long weightOf(ProductDetails p) {
+        long chars = length(p.getUrl()) + length(p.getTitle()) + length(p.getDescription()) + length(p.getPrice())
+                + length(p.getPriceCurrency()) + length(p.getItemCondition()) + length(p.getBrand())
+                + length(p.getLocation()) + length(p.getAdInfo()) + length(p.getGeneralInfo()) + length(p.getFeatures());
+        return 256 + 2 * chars;
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Callers may modify what they get back, so the cache keeps and hands out its own copies
+     */
+    private static ProductDetails copy(ProductDetails p) {
+        return ProductDetails.builder()
+                .id(p.getId())
+                .url(p.getUrl())
+                .title(p.getTitle())
+                .description(p.getDescription())
+                .price(p.getPrice())
+                .priceMinor(p.getPriceMinor())
+                .priceCurrency(p.getPriceCurrency())
+                .itemCondition(p.getItemCondition())
+                .brand(p.getBrand())
+                .location(p.getLocation())
+                .adInfo(p.getAdInfo())
+                .generalInfo(p.getGeneralInfo())
+                .features(p.getFeatures())
+                .createdAt(p.getCreatedAt())
+                .verifiedAt(p.getVerifiedAt())
+                .normalizeAttemptedAt(p.getNormalizeAttemptedAt())
+                .build();
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, halved every few accesses per counter so old popularity fades
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97CB3127, 0x2F0D1A5B, 0x6A09E667, 0x3C6EF372};
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int size = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+            counters = new byte[size];
+            mask = size - 1;
+            sampleSize = 10 * size;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int seed : SEEDS) {
+                int index = indexOf(hash, seed);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int min = 15;
+            for (int seed : SEEDS) {
+                min = Math.min(min, counters[indexOf(hash, seed)]);
+            }
+            return min;
+        }
+
+        private int indexOf(int hash, int seed) {
+            int h = (hash ^ seed) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xED5AD4BB;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
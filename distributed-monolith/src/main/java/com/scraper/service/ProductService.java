@@ -1,19 +1,39 @@
 package com.scraper.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.ProductCursor;
 import com.scraper.dto.ProductInfo;
 import com.scraper.dto.ProductResponse;
 import com.scraper.entity.ProductDetails;
+import com.scraper.repository.AttributeFilter;
+import com.scraper.repository.ProductDetailsProjection;
 import com.scraper.repository.ProductDetailsRepository;
+import com.scraper.repository.ProductDetailsUpsert;
+import com.scraper.repository.ProductField;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,34 +44,46 @@ public class ProductService {
     private final ProductDetailsRepository repository;
     private final WebScraperService scraperService;
     private final ObjectMapper objectMapper;
+    private final ProductBulkLoader bulkLoader;
+    private final TransactionTemplate transactionTemplate;
+    private final UrlFilter urlFilter;
+    private final ProductCache productCache;
+
+    /** Saves of at least this many products go through COPY instead of JPA batches; 0 disables */
+    @Value("${scraper.bulk-ingest.threshold:1000}")
+    private int bulkThreshold;
+
+    /** Rows per COPY + merge transaction */
+    @Value("${scraper.bulk-ingest.chunk-size:5000}")
+    private int bulkChunkSize;
+
+    /** How long a stored product is served by /extract before its page is fetched again */
+    @Value("${scraper.product-cache.freshness:1h}")
+    private Duration freshness;
+
+    /** Rows the export cursor fetches per round trip */
+    @Value("${scraper.products.export-fetch-size:1000}")
+    private int exportFetchSize;
     
+    /**
+     * Fetch the product page and upsert it, refreshing the stored row when the page changed.
+     * URLs stored and verified within scraper.product-cache.freshness are skipped without a fetch.
+     */
     @Async
     public CompletableFuture<Void> processAndSaveProduct(String url) {
         log.info("Processing product URL: {}", url);
-        
-        if (repository.existsByUrl(url)) {
-            log.debug("Product already exists: {}", url);
+
+        // URLs the filter rules out are certainly new, so only the others are looked up
+        String safeUrl = cap(url, 255);
+        if (urlFilter.mightContain(safeUrl) && freshStored(safeUrl, true).isPresent()) {
+            log.debug("Product verified recently, not fetching again: {}", url);
             return CompletableFuture.completedFuture(null);
         }
         
         ProductInfo productInfo = scraperService.extractProductInfo(url);
         
         try {
-            String safeUrl = cap(url, 255);
-            ProductDetails productDetails = ProductDetails.builder()
-                    .url(safeUrl)
-                    .title(productInfo.getTitle())
-                    .description(productInfo.getDescription())
-                    .price(cap(productInfo.getPrice(), 255))
-                    .location(cap(productInfo.getLocation(), 255))
-                    .adInfo(toJson(productInfo.getAdInfo()))
-                    .generalInfo(toJson(productInfo.getGeneralInfo()))
-                    .features(toJson(productInfo.getFeatures()))
-                    .build();
-            
-            repository.save(productDetails);
-            log.info("Product saved successfully: {}", url);
-            
+            saveVerified(url, productInfo);
         } catch (Exception e) {
             log.error("Error saving product {}: {}", url, e.getMessage());
         }
@@ -59,20 +91,78 @@ public class ProductService {
         return CompletableFuture.completedFuture(null);
     }
     
-    @Transactional
-    public void saveProduct(String url, ProductInfo productInfo) {
-        if (repository.existsByUrl(url)) {
-            log.debug("Product already exists: {}", url);
-            return;
-        }
+    /**
+     * Insert the product, or update the stored row with the same URL when any field changed,
+     * in one statement. For data from a listing card: a changed row is no longer verified.
+     */
+    public ProductDetailsUpsert.Outcome saveProduct(String url, ProductInfo productInfo) {
+        return save(url, productInfo, null);
+    }
+
+    /**
+     * Save a product just extracted from its own page and mark it as verified now, even if nothing changed
+     */
+    public ProductDetailsUpsert.Outcome saveVerified(String url, ProductInfo productInfo) {
+        return save(url, productInfo, LocalDateTime.now());
+    }
 
+    private ProductDetailsUpsert.Outcome save(String url, ProductInfo productInfo, LocalDateTime verifiedAt) {
         String safeUrl = cap(url, 255);
         if (!safeUrl.equals(url)) {
             log.warn("URL truncated from {} to {} characters to fit DB column", url.length(), safeUrl.length());
         }
 
-        log.info("Saving product: url={}, title={}, price={}", safeUrl, productInfo.getTitle(), productInfo.getPrice());
+        ProductDetails entity = toEntity(safeUrl, productInfo);
+        entity.setVerifiedAt(verifiedAt);
+        ProductDetailsUpsert.Outcome outcome = repository.upsert(entity);
+        if (outcome == ProductDetailsUpsert.Outcome.UNCHANGED && verifiedAt != null) {
+            repository.markVerified(safeUrl, verifiedAt);
+        }
+        if (outcome == ProductDetailsUpsert.Outcome.INSERTED) urlFilter.add(safeUrl);
+        if (outcome != ProductDetailsUpsert.Outcome.UNCHANGED || verifiedAt != null) productCache.invalidate(safeUrl);
+        log.info("Product {}: url={}, title={}, price={}", outcome.name().toLowerCase(), safeUrl,
+                productInfo.getTitle(), productInfo.getPrice());
+        return outcome;
+    }
+
+    /**
+     * Upsert a crawl's products; returns the number of products inserted.
+     * New URLs are inserted and stored rows whose fields changed are updated, the same as {@link #saveProduct}.
+     * Up to scraper.bulk-ingest.threshold products are saved in one transaction as multi-row
+     * INSERT ... ON CONFLICT DO UPDATE statements; larger crawls are streamed in through COPY by
+     * {@link ProductBulkLoader}. Updated products leave the cache once their transaction has committed.
+     */
+    public int saveProducts(Map<String, ProductInfo> products) {
+        Map<String, ProductInfo> byUrl = new LinkedHashMap<>();
+        products.forEach((url, info) -> byUrl.putIfAbsent(cap(url, 255), info));
+        if (byUrl.isEmpty()) return 0;
 
+        List<ProductDetails> entities = new ArrayList<>(byUrl.size());
+        byUrl.forEach((url, info) -> entities.add(toEntity(url, info != null ? info : new ProductInfo())));
+        Map<String, ProductDetailsUpsert.Outcome> outcomes = bulkThreshold > 0 && byUrl.size() >= bulkThreshold
+                ? bulkLoader.load(entities, bulkChunkSize)
+                : transactionTemplate.execute(status -> repository.upsertAll(entities));
+
+        int inserted = 0;
+        int updated = 0;
+        for (Map.Entry<String, ProductDetailsUpsert.Outcome> entry : outcomes.entrySet()) {
+            switch (entry.getValue()) {
+                case INSERTED -> {
+                    urlFilter.add(entry.getKey());
+                    inserted++;
+                }
+                case UPDATED -> {
+                    productCache.invalidate(entry.getKey());
+                    updated++;
+                }
+                case UNCHANGED -> { }
+            }
+        }
+        log.info("Saved {} new products, updated {} ({} unchanged)", inserted, updated, byUrl.size() - inserted - updated);
+        return inserted;
+    }
+
+    private ProductDetails toEntity(String safeUrl, ProductInfo productInfo) {
         ProductDetails productDetails = ProductDetails.builder()
                 .url(safeUrl)
                 .title(productInfo.getTitle())
@@ -83,20 +173,178 @@ public class ProductService {
                 .generalInfo(toJson(productInfo.getGeneralInfo()))
                 .features(toJson(productInfo.getFeatures()))
                 .build();
-
-        ProductDetails saved = repository.save(productDetails);
-        log.info("Product saved successfully with ID: {}", saved.getId());
+        normalize(productDetails, productInfo.getAdInfo());
+        return productDetails;
     }
     
-    public List<ProductResponse> getAllProducts() {
-        List<ProductDetails> products = repository.findAll();
-        log.info("Found {} products in database", products.size());
+    /**
+     * Product info for a URL: the stored product while it was verified within scraper.product-cache.freshness,
+     * otherwise freshly extracted from the page and saved
+     */
+    public ProductInfo extractProduct(String url) {
+        String safeUrl = cap(url, 255);
+        Optional<ProductCache.Lookup> stored = freshStored(safeUrl, false);
+        if (stored.isPresent()) {
+            log.debug("Serving stored product for {} (verified {})", safeUrl, stored.get().verifiedAt());
+            return toProductInfo(stored.get().product());
+        }
+
+        ProductInfo productInfo = scraperService.extractProductInfo(url);
+        // Pages that yielded nothing are not worth storing or remembering
+        if (productInfo.getTitle() != null) {
+            saveVerified(url, productInfo);
+        }
+        return productInfo;
+    }
+
+    /**
+     * The stored product for this URL if it was verified within scraper.product-cache.freshness.
+     * filterHit: the URL filter let this lookup through, so a URL that is not stored is one of its false positives.
+     */
+    private Optional<ProductCache.Lookup> freshStored(String safeUrl, boolean filterHit) {
+        Optional<ProductCache.Lookup> stored = productCache.getByUrl(safeUrl);
+        if (filterHit && stored.isEmpty()) urlFilter.recordFalsePositives(1);
+        Instant threshold = Instant.now().minus(freshness);
+        return stored.filter(lookup -> lookup.verifiedAt().isAfter(threshold));
+    }
+
+    public Optional<ProductResponse> getProduct(long id) {
+        return productCache.getById(id).map(this::convertToResponse);
+    }
+
+    /** Products as their requested fields keyed by JSON name */
+    public record Page(List<Map<String, Object>> products, String nextCursor) {}
+
+    /**
+     * One page of the products matching the filter in (created_at, id) order, starting after the cursor
+     * (null for the first page), reading only the columns of the requested fields. nextCursor is null on
+     * the last page.
+     *
+     * @throws IllegalArgumentException for a malformed cursor
+     */
+    public Page getProducts(String cursor, int limit, Set<ProductField> fields, AttributeFilter filter) {
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor);
+        List<ProductDetailsProjection.ProjectedRow> rows = repository.findPage(fields, filter,
+                after != null ? after.createdAt() : null, after != null ? after.id() : 0, limit);
+
+        String next = null;
+        if (rows.size() == limit) {
+            ProductDetailsProjection.ProjectedRow last = rows.get(rows.size() - 1);
+            next = new ProductCursor(last.createdAt(), last.id()).encode();
+        }
+        return new Page(rows.stream().map(ProductDetailsProjection.ProjectedRow::fields).collect(Collectors.toList()), next);
+    }
+
+    /**
+     * Every product matching the filter in (created_at, id) order, read through a forward-only cursor of
+     * scraper.products.export-fetch-size rows so memory stays flat however large the table is.
+     * The cursor needs a transaction; a read-only one lets Postgres skip write bookkeeping and Hibernate
+     * skip flushing.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(Set<ProductField> fields, AttributeFilter filter, Consumer<Map<String, Object>> sink) {
+        repository.streamAll(fields, filter, exportFetchSize, sink);
+    }
 
-        return products.stream()
+    /**
+     * Products in one currency priced between min and max (major units, both optional), ordered by price.
+     * Runs as a range scan on the (price_currency, price_minor) index.
+     */
+    public List<ProductResponse> findByPrice(String currency, BigDecimal min, BigDecimal max, boolean ascending, int limit) {
+        String code = currency.toUpperCase();
+        long minMinor = min != null ? PriceParser.toMinorUnits(min, code) : Long.MIN_VALUE;
+        long maxMinor = max != null ? PriceParser.toMinorUnits(max, code) : Long.MAX_VALUE;
+        Sort sort = Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, "priceMinor").and(Sort.by("id"));
+        return repository.findByPriceCurrencyAndPriceMinorBetween(code, minMinor, maxMinor, PageRequest.of(0, limit, sort))
+                .stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Fill the normalized price, condition and brand columns of rows saved before they existed.
+     * Walks the table by ID in chunks, each saved in its own transaction; returns the number of rows updated.
+     * Every row looked at is stamped with normalize_attempted_at, so rows whose price cannot be parsed
+     * are not scanned again on the next run.
+     */
+    public int backfillNormalizedColumns(int chunkSize) {
+        int updated = 0;
+        int unparsed = 0;
+        long lastId = 0;
+        while (true) {
+            List<ProductDetails> chunk = repository.findByIdGreaterThanAndPriceMinorIsNullAndNormalizeAttemptedAtIsNullOrderByIdAsc(
+                    lastId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) break;
+            lastId = chunk.get(chunk.size() - 1).getId();
+
+            LocalDateTime now = LocalDateTime.now();
+            List<ProductDetails> changed = new ArrayList<>();
+            List<Long> unchanged = new ArrayList<>();
+            for (ProductDetails entity : chunk) {
+                if (normalize(entity, fromJson(entity.getAdInfo()))) {
+                    entity.setNormalizeAttemptedAt(now);
+                    changed.add(entity);
+                } else {
+                    unchanged.add(entity.getId());
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(changed);
+                if (!unchanged.isEmpty()) repository.markNormalizeAttempted(unchanged, now);
+            });
+            changed.forEach(entity -> productCache.invalidate(entity.getUrl()));
+            updated += changed.size();
+            unparsed += unchanged.size();
+        }
+        log.info("Backfilled normalized columns of {} products ({} left without a parseable price)", updated, unparsed);
+        return updated;
+    }
+
+    /**
+     * Derive the typed columns from the raw price text and ad info; returns whether anything was set
+     */
+    private static boolean normalize(ProductDetails entity, Map<String, String> adInfo) {
+        boolean changed = false;
+        PriceParser.Price price = PriceParser.parse(entity.getPrice()).orElse(null);
+        if (price != null) {
+            entity.setPriceMinor(price.minorUnits());
+            entity.setPriceCurrency(price.currency());
+            changed = true;
+        }
+        if (adInfo != null) {
+            if (entity.getItemCondition() == null && adInfo.get("Condition") != null) {
+                entity.setItemCondition(cap(adInfo.get("Condition"), 255));
+                changed = true;
+            }
+            if (entity.getBrand() == null && adInfo.get("Brand") != null) {
+                entity.setBrand(cap(adInfo.get("Brand"), 255));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private ProductInfo toProductInfo(ProductDetails entity) {
+        return ProductInfo.builder()
+                .title(entity.getTitle())
+                .description(entity.getDescription())
+                .price(entity.getPrice())
+                .location(entity.getLocation())
+                .adInfo(fromJson(entity.getAdInfo()))
+                .generalInfo(fromJson(entity.getGeneralInfo()))
+                .features(fromJson(entity.getFeatures()))
+                .build();
+    }
+
+    private Map<String, String> fromJson(String json) {
+        if (json == null || json.isBlank()) return null;
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, String>>() {});
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
     private ProductResponse convertToResponse(ProductDetails entity) {
         return ProductResponse.builder()
                 .id(entity.getId())
@@ -104,6 +352,8 @@ public class ProductService {
                 .title(entity.getTitle())
                 .description(entity.getDescription())
                 .price(entity.getPrice())
+                .priceMinor(entity.getPriceMinor())
+                .priceCurrency(entity.getPriceCurrency())
                 .location(entity.getLocation())
                 .adInfo(entity.getAdInfo())
                 .generalInfo(entity.getGeneralInfo())
@@ -125,7 +375,7 @@ public class ProductService {
         }
     }
 
-    private String cap(String value, int maxLen) {
+    private static String cap(String value, int maxLen) {
         if (value == null) return null;
         if (value.length() <= maxLen) return value;
         return value.substring(0, maxLen);
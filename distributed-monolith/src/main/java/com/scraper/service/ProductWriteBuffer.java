@@ -0,0 +1,146 @@
+package com.scraper.service;
+
+import com.scraper.dto.ProductInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer between scraping and the database. Products are queued and one flusher thread saves
+ * them through {@link ProductService#saveProducts} once scraper.write-buffer.batch-size are waiting or
+ * scraper.write-buffer.flush-interval-ms has passed since the first of them arrived, so the number of
+ * transactions follows the number of batches rather than products.
+ * A full buffer blocks enqueue until the flusher catches up; on shutdown everything queued is flushed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductWriteBuffer {
+
+    private final ProductService productService;
+
+    @Value("${scraper.write-buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${scraper.write-buffer.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${scraper.write-buffer.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    /** How long shutdown waits for the remaining products to be written */
+    @Value("${scraper.write-buffer.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private record Pending(String url, ProductInfo product) {}
+
+    private BlockingQueue<Pending> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        running = true;
+        flusher = Thread.ofPlatform().name("product-write-behind").start(this::drain);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            log.error("Write buffer did not drain within {} ms, {} products left unsaved", shutdownTimeoutMs, queue.size());
+            return;
+        }
+        // Products enqueued while the flusher was exiting
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+    }
+
+    /**
+     * Queue a product for saving; blocks while the buffer is full
+     */
+    public void enqueue(String url, ProductInfo product) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Write buffer is shut down");
+        }
+        queue.put(new Pending(url, product));
+    }
+
+    public void enqueueAll(Map<String, ProductInfo> products) throws InterruptedException {
+        for (Map.Entry<String, ProductInfo> entry : products.entrySet()) {
+            enqueue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                // Stopped waiting early (shutdown): take whatever is queued, up to a full batch
+                queue.drainTo(batch, batchSize - batch.size());
+            } catch (InterruptedException e) {
+                // Treated as shutdown; the loop keeps going until the queue is empty
+                interrupted = true;
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void flush(List<Pending> batch) {
+        Map<String, ProductInfo> products = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            products.put(pending.url(), pending.product());
+        }
+        try {
+            int inserted = productService.saveProducts(products);
+            log.debug("Flushed {} buffered products, {} new", products.size(), inserted);
+        } catch (Exception e) {
+            // One bad row fails the whole transaction; upsert the products one by one instead
+            log.warn("Batched flush of {} products failed, saving individually: {}", products.size(), e.getMessage());
+            products.forEach((url, product) -> {
+                try {
+                    productService.saveProduct(url, product != null ? product : new ProductInfo());
+                } catch (Exception ex) {
+                    log.error("Error saving product {}: {}", url, ex.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.scraper.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over the URLs in product_details, so freshness checks only ask Postgres about URLs that may
+ * already be stored. A URL the filter has never seen is definitely new; a possible hit still has to be verified.
+ * Sized for scraper.url-filter.expected-urls at scraper.url-filter.false-positive-rate (10 million URLs at
+ * 1% take about 12 MB). Preloaded from the table at startup; until then every URL counts as a possible hit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UrlFilter {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${scraper.url-filter.expected-urls:10000000}")
+    private long expectedUrls;
+
+    @Value("${scraper.url-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private AtomicLongArray bits;
+    private long bitCount;
+    private int hashCount;
+    private volatile boolean ready;
+
+    private final LongAdder added = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder possibleHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public record Stats(boolean ready, long urls, long bitCount, int hashCount, long definiteMisses,
+                        long possibleHits, long falsePositives, double falsePositiveRatio) {}
+
+    @PostConstruct
+    void allocate() {
+        // Allocated before the preload so URLs inserted while it runs are recorded as well
+        double ln2 = Math.log(2);
+        long wanted = Math.max(64, (long) Math.ceil(-expectedUrls * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (wanted + 63) / 64));
+        bitCount = (long) bits.length() * 64;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(1, expectedUrls) * ln2));
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            // A cursor (fetch size inside a transaction) keeps the driver from buffering the whole column
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(10_000);
+            transactionTemplate.executeWithoutResult(status ->
+                    streaming.query("SELECT url FROM product_details", (RowCallbackHandler) rs -> add(rs.getString(1))));
+            ready = true;
+            log.info("URL filter loaded with {} URLs ({} bits, {} hashes)", added.sum(), bitCount, hashCount);
+        } catch (Exception e) {
+            log.warn("Could not preload URL filter, every URL will be checked in the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * False only for URLs that are certainly not stored
+     */
+    public boolean mightContain(String url) {
+        if (!ready) return true;
+        long hash1 = hash(url, SEED_1);
+        long hash2 = hash(url, SEED_2);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definiteMisses.increment();
+                return false;
+            }
+        }
+        possibleHits.increment();
+        return true;
+    }
+
+    public void add(String url) {
+        if (url == null) return;
+        long hash1 = hash(url, SEED_1);
+        long hash2 = hash(url, SEED_2);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            bits.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+        added.increment();
+    }
+
+    /**
+     * Report how many possible hits the database showed to be absent
+     */
+    public void recordFalsePositives(int count) {
+        falsePositives.add(count);
+    }
+
+    public Stats stats() {
+        long hits = possibleHits.sum();
+        long fp = falsePositives.sum();
+        long misses = definiteMisses.sum();
+        // Share of URLs not stored that the filter failed to rule out
+        double ratio = fp + misses == 0 ? 0.0 : (double) fp / (fp + misses);
+        return new Stats(ready, added.sum(), bitCount, hashCount, misses, hits, fp, ratio);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer
+     */
+    private static long hash(String url, long seed) {
+        long h = seed;
+        for (int i = 0; i < url.length(); i++) {
+            h ^= url.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,120 @@
+package com.scraper.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.scraper.service.ExtractionPatterns.*;
+
+/**
+ * Per-card cost of the lookups WebScraperService runs on an eBay browse card: the eleven card selectors and
+ * the three item-ID regexes, once parsing each selector and regex on every call (as before the registry) and
+ * once through the precompiled {@link ExtractionPatterns}.
+ * Not part of the regular test run; start it with
+ * {@code mvn test -Dtest=ExtractionPatternsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionPatternsBenchmark {
+
+    private static final String CARD_HTML = """
+            <li class="brwrvr__item-card brwrvr__item-card--list">
+              <div class="brwrvr__item-card__signals">
+                <a class="brwrvr__item-card__image-link" href="https://www.ebay.com/p/19050069825?iid=256538426117">
+                  <img class="brwrvr__item-card__image" src="https://i.ebayimg.com/images/g/abc/s-l500.webp"
+                       data-originalsrc="https://i.ebayimg.com/images/g/abc/s-l1600.webp" alt="">
+                </a>
+                <a class="bsig__title__wrapper" href="https://www.ebay.com/p/19050069825?iid=256538426117">
+                  <h3 class="bsig__title__text">Apple iPhone 13 128GB Midnight Unlocked</h3>
+                </a>
+                <div class="bsig__subTitle">Excellent condition, battery health 91%</div>
+                <div class="bsig__price bsig__price--displayprice">$329.99</div>
+                <div class="bsig__listingCondition"><span>Used</span></div>
+                <div class="bsig__listingCondition secondary"><span>Apple</span></div>
+                <div class="bsig__logisticsCost">Free shipping</div>
+                <div class="bsig__item-hotness"><span class="textual-display negative">412 sold</span></div>
+                <div class="star-rating" aria-label="4.5 out of 5 stars"></div>
+                <span class="bsig__product-review__count">(1,204)</span>
+              </div>
+            </li>
+            """;
+
+    private Element card;
+    private String url;
+
+    @Setup
+    public void parseCard() {
+        card = Jsoup.parse(CARD_HTML, "https://www.ebay.com").selectFirst("li.brwrvr__item-card");
+        url = card.selectFirst(BROWSE_CARD_LINK).absUrl("href");
+    }
+
+    @Benchmark
+    public void compiledPerCard(Blackhole blackhole) {
+        blackhole.consume(card.selectFirst("a.brwrvr__item-card__image-link[href], a.bsig__title__wrapper[href], a[href*='/p/'], a[href*='/itm/']"));
+        blackhole.consume(card.selectFirst("h3.bsig__title__text, .bsig__title__text, h3[class*=title]"));
+        blackhole.consume(card.selectFirst(".bsig__subTitle, .bsig____search.subTitle"));
+        blackhole.consume(card.selectFirst(".bsig__price, .bsig__price--displayprice"));
+        blackhole.consume(card.selectFirst(".bsig__listingCondition, .bsig__listingCondition.secondary"));
+        blackhole.consume(card.select(".bsig__listingCondition.secondary"));
+        blackhole.consume(card.selectFirst(".bsig__logisticsCost"));
+        blackhole.consume(card.selectFirst(".bsig__item-hotness, .bsig__item-hotness .negative, .bsig__item-hotness .textual-display"));
+        blackhole.consume(card.selectFirst(".star-rating"));
+        blackhole.consume(card.selectFirst(".bsig__product-review__count"));
+        blackhole.consume(card.selectFirst("img.brwrvr__item-card__image[src], img[data-originalsrc]"));
+        blackhole.consume(find(Pattern.compile("/p/(\\d+)").matcher(url)));
+        blackhole.consume(find(Pattern.compile("iid=([0-9]+)").matcher(url)));
+        blackhole.consume(find(Pattern.compile("/(?:itm|i|p)/(\\d+)").matcher(url)));
+    }
+
+    @Benchmark
+    public void precompiled(Blackhole blackhole) {
+        blackhole.consume(card.selectFirst(BROWSE_CARD_LINK));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_TITLE));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_SUBTITLE));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_PRICE));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_CONDITION));
+        blackhole.consume(card.select(BROWSE_CARD_SECONDARY));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_SHIPPING));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_SOLD));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_RATING));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_REVIEW_COUNT));
+        blackhole.consume(card.selectFirst(BROWSE_CARD_IMAGE));
+        blackhole.consume(find(EBAY_PRODUCT_ID.matcher(url)));
+        blackhole.consume(find(EBAY_IID_PARAM.matcher(url)));
+        blackhole.consume(find(EBAY_ITEM_ID.matcher(url)));
+    }
+
+    private static String find(Matcher matcher) {
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExtractionPatternsBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,218 @@
+package com.scraper.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.dto.ProductInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs discovery and cursor paging against a local HttpServer that serves a listing page and its API
+ */
+class ListingApiClientTest {
+
+    private static final String GRAPHQL_PAGE = """
+            <html><head>
+            <script>window.sentryConfig = {"endpoint": "/api/sentry/envelope"};</script>
+            <script>
+              const client = new Client({ uri: "/graphql" });
+              const SEARCH = "query SearchAds($input: AdsSearchInput!, $after: String, $limit: Int) { ads(input: $input, after: $after, limit: $limit) { edges { node { id title } } } }";
+              client.query(SEARCH, { variables: { input: { categoryId: 42, sort: 'price', text: "a {b}" }, limit: 20, after: null, tracking: true } });
+            </script>
+            </head><body></body></html>
+            """;
+
+    private static final String XHR_PAGE = """
+            <html><head>
+            <script>fetch('/api/sentry/envelope'); fetch("/analytics/api/collect");</script>
+            <script>fetch("/api/ads?category=42").then(r => r.json());</script>
+            </head><body></body></html>
+            """;
+
+    private static final String PLAIN_PAGE = "<html><head><script>console.log('no api here')</script></head><body></body></html>";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> pages = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final List<JsonNode> graphQlRequests = new CopyOnWriteArrayList<>();
+    private final List<String> xhrRequests = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private String base;
+    private ListingApiClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ro/", exchange -> {
+            hits.computeIfAbsent(exchange.getRequestURI().getPath(), k -> new AtomicInteger()).incrementAndGet();
+            String page = pages.get(exchange.getRequestURI().getPath());
+            respond(exchange, page != null ? 200 : 404, "text/html; charset=utf-8", page != null ? page : "");
+        });
+        server.createContext("/graphql", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            graphQlRequests.add(request);
+            JsonNode after = request.path("variables").path("after");
+            respond(exchange, 200, "application/json", after.isMissingNode()
+                    ? adsPage("c1", true, ad("10000001", "Phone A", "100", "EUR"), ad("10000002", "Phone B", "200", "EUR"))
+                    : adsPage("c2", false, ad("10000003", "Phone C", "300", "EUR")));
+        });
+        server.createContext("/api/ads", exchange -> {
+            xhrRequests.add(exchange.getRequestURI().toString());
+            boolean first = exchange.getRequestURI().getQuery().indexOf("cursor=") < 0;
+            respond(exchange, 200, "application/json", first
+                    ? "{\"items\": [" + ad("20000001", "Bike A", "50", "MDL") + "], \"nextCursor\": \"n1\"}"
+                    : "{\"items\": [" + ad("20000002", "Bike B", "60", "MDL") + "]}");
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        HostRateLimiter rateLimiter = new HostRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "initialRate", 100.0);
+        ReflectionTestUtils.setField(rateLimiter, "minRate", 1.0);
+        ReflectionTestUtils.setField(rateLimiter, "maxRate", 100.0);
+        ReflectionTestUtils.setField(rateLimiter, "burst", 10);
+        ReflectionTestUtils.setField(rateLimiter, "increaseStep", 0.1);
+        ReflectionTestUtils.setField(rateLimiter, "latencyFactor", 1.5);
+        PageFetcher pageFetcher = new PageFetcher(rateLimiter, new HttpPageCache());
+
+        client = new ListingApiClient(pageFetcher, new EmbeddedJsonExtractor(objectMapper), objectMapper);
+        ReflectionTestUtils.setField(client, "hosts", List.of("127.0.0.1"));
+        ReflectionTestUtils.setField(client, "discoveryRetry", Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void discoversGraphQlOperationWithPageVariables() {
+        Optional<ListingApiClient.Endpoint> endpoint = client.discover(Jsoup.parse(GRAPHQL_PAGE, base + "/ro/list/phones"));
+
+        assertThat(endpoint).isPresent();
+        assertThat(endpoint.get().url()).isEqualTo(base + "/graphql");
+        assertThat(endpoint.get().cursorName()).isEqualTo("after");
+        assertThat(endpoint.get().declared()).containsOnlyKeys("input", "after", "limit");
+        // Undeclared variables (tracking) are dropped, string contents with braces survive
+        assertThat(endpoint.get().variables()).containsOnlyKeys("input", "limit", "after");
+        assertThat(endpoint.get().variables().get("input"))
+                .isEqualTo(Map.of("categoryId", 42, "sort", "price", "text", "a {b}"));
+    }
+
+    @Test
+    void xhrDiscoverySkipsTrackingUrls() {
+        Optional<ListingApiClient.Endpoint> endpoint = client.discover(Jsoup.parse(XHR_PAGE, base + "/ro/list/bikes"));
+
+        assertThat(endpoint).isPresent();
+        assertThat(endpoint.get().isGraphQl()).isFalse();
+        assertThat(endpoint.get().url()).isEqualTo(base + "/api/ads?category=42");
+    }
+
+    @Test
+    void pagesGraphQlCursorWithListingVariables() {
+        pages.put("/ro/list/phones", GRAPHQL_PAGE);
+
+        Map<String, ProductInfo> products = client.scrape(base + "/ro/list/phones?limit=10", 5);
+
+        assertThat(products).containsOnlyKeys(base + "/ro/10000001", base + "/ro/10000002", base + "/ro/10000003");
+        ProductInfo first = products.get(base + "/ro/10000001");
+        assertThat(first.getTitle()).isEqualTo("Phone A");
+        assertThat(first.getPrice()).isEqualTo("100 EUR");
+        assertThat(first.getAdInfo()).containsEntry("Product ID", "10000001");
+
+        assertThat(graphQlRequests).hasSize(2);
+        JsonNode firstVariables = graphQlRequests.get(0).path("variables");
+        assertThat(firstVariables.path("input").path("categoryId").asInt()).isEqualTo(42);
+        // The listing URL's limit overrides the page's and keeps its declared Int type
+        assertThat(firstVariables.path("limit").isIntegralNumber()).isTrue();
+        assertThat(firstVariables.path("limit").asInt()).isEqualTo(10);
+        assertThat(firstVariables.has("after")).isFalse();
+        JsonNode secondVariables = graphQlRequests.get(1).path("variables");
+        assertThat(secondVariables.path("after").asText()).isEqualTo("c1");
+        assertThat(secondVariables.path("input")).isEqualTo(firstVariables.path("input"));
+    }
+
+    @Test
+    void pagesXhrCursorAsQueryParameter() {
+        pages.put("/ro/list/bikes", XHR_PAGE);
+
+        Map<String, ProductInfo> products = client.scrape(base + "/ro/list/bikes", 5);
+
+        assertThat(products).containsOnlyKeys(base + "/ro/20000001", base + "/ro/20000002");
+        assertThat(products.get(base + "/ro/20000002").getPrice()).isEqualTo("60 MDL");
+        assertThat(xhrRequests).containsExactly("/api/ads?category=42", "/api/ads?category=42&cursor=n1");
+    }
+
+    @Test
+    void endpointIsCachedPerListingShape() {
+        pages.put("/ro/list/phones", GRAPHQL_PAGE);
+        pages.put("/ro/list/bikes", XHR_PAGE);
+
+        client.scrape(base + "/ro/list/phones?limit=10", 1);
+        client.scrape(base + "/ro/list/phones?limit=30", 1);
+        client.scrape(base + "/ro/list/bikes", 1);
+
+        // Same path and parameter names share the discovered operation; another path is discovered on its own
+        assertThat(hits.get("/ro/list/phones").get()).isEqualTo(1);
+        assertThat(hits.get("/ro/list/bikes").get()).isEqualTo(1);
+        assertThat(graphQlRequests.get(1).path("variables").path("limit").asInt()).isEqualTo(30);
+        assertThat(ListingApiClient.shapeOf(base + "/ro/list/phones?limit=10&sort=asc"))
+                .isEqualTo(ListingApiClient.shapeOf(base + "/ro/list/phones?sort=desc&limit=20"))
+                .isNotEqualTo(ListingApiClient.shapeOf(base + "/ro/list/phones?limit=10"));
+    }
+
+    @Test
+    void failedDiscoveryIsRetriedOnceExpired() {
+        pages.put("/ro/list/cars", PLAIN_PAGE);
+
+        assertThat(client.scrape(base + "/ro/list/cars", 1)).isEmpty();
+        assertThat(client.scrape(base + "/ro/list/cars", 1)).isEmpty();
+        assertThat(hits.get("/ro/list/cars").get()).isEqualTo(1);
+
+        ReflectionTestUtils.setField(client, "discoveryRetry", Duration.ZERO);
+        client.scrape(base + "/ro/list/cars", 1);
+        pages.put("/ro/list/cars", XHR_PAGE);
+        Map<String, ProductInfo> products = client.scrape(base + "/ro/list/cars", 1);
+
+        assertThat(hits.get("/ro/list/cars").get()).isEqualTo(3);
+        assertThat(products).containsOnlyKeys(base + "/ro/20000001");
+    }
+
+    private static String adsPage(String endCursor, boolean hasNextPage, String... ads) {
+        return "{\"data\": {\"ads\": {\"edges\": [" + String.join(",", List.of(ads).stream().map(ad -> "{\"node\": " + ad + "}").toList())
+                + "], \"pageInfo\": {\"endCursor\": \"" + endCursor + "\", \"hasNextPage\": " + hasNextPage + "}}}}";
+    }
+
+    private static String ad(String id, String title, String amount, String unit) {
+        return "{\"id\": \"" + id + "\", \"title\": \"" + title + "\", \"url\": \"/ro/" + id + "\", "
+                + "\"price\": {\"value\": \"" + amount + "\", \"unit\": \"" + unit + "\"}}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
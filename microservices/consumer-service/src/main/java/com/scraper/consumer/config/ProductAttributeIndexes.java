@@ -0,0 +1,50 @@
+package com.scraper.consumer.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the GIN indexes behind attribute filtering, which JPA index annotations cannot express.
+ * jsonb_path_ops indexes only support containment (@>), and are smaller and faster for it than the
+ * default operator class. Depending on the EntityManagerFactory makes this run after Hibernate has
+ * created the table.
+ * The indexes are built CONCURRENTLY, so saves keep going while a large table is indexed. Such a build
+ * cannot run inside a transaction, and one that fails leaves an invalid index behind, which is dropped
+ * and rebuilt on the next start.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductAttributeIndexes {
+
+    private static final List<String> JSONB_COLUMNS = List.of("ad_info", "general_info", "features");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void createIndexes() {
+        for (String column : JSONB_COLUMNS) {
+            String index = "idx_product_details_" + column;
+            try {
+                // IF NOT EXISTS would also skip an invalid index left by an interrupted build
+                Boolean valid = jdbcTemplate.query("SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                        + "WHERE c.relname = ? AND pg_table_is_visible(c.oid)", rs -> rs.next() ? rs.getBoolean(1) : null, index);
+                if (Boolean.FALSE.equals(valid)) {
+                    log.warn("Rebuilding invalid index {}", index);
+                    jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+                }
+                jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index
+                        + " ON product_details USING GIN (" + column + " jsonb_path_ops)");
+            } catch (Exception e) {
+                log.warn("Could not create GIN index on product_details.{}: {}", column, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.scraper.consumer.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scraper.consumer.entity.ProductDetails;
+import com.scraper.consumer.repository.AttributeFilter;
+import com.scraper.consumer.repository.ProductField;
+import com.scraper.consumer.service.ProductCache;
 import com.scraper.consumer.service.ProductService;
+import com.scraper.consumer.service.UrlFilter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/consumer")
@@ -18,11 +33,86 @@ import java.util.Map;
 public class ConsumerController {
     
     private final ProductService productService;
+    private final UrlFilter urlFilter;
+    private final ProductCache productCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${scraper.products.page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${scraper.products.max-page-size:1000}")
+    private int maxPageSize;
     
     @GetMapping("/products")
-    @Operation(summary = "Get all products", description = "Retrieve all products saved in the database")
-    public ResponseEntity<List<ProductDetails>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    @Operation(summary = "Get products", description = "One page of saved products, oldest first; pass the X-Next-Cursor header of a response as cursor to get the next page. fields=summary or a comma-separated field list limits the columns read and returned; attr.<name>=<value> (repeatable) keeps only products with that attribute, looked up through GIN indexes")
+    public ResponseEntity<List<Map<String, Object>>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam Map<String, String> params) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ProductService.Page page = productService.getProducts(cursor, pageSize, ProductField.parse(fields),
+                    AttributeFilter.parse(params));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header("X-Next-Cursor", page.nextCursor());
+            }
+            return response.body(page.products());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping(value = "/products/export", produces = "application/x-ndjson")
+    @Operation(summary = "Export all products", description = "Every product as newline-delimited JSON, streamed from a database cursor; fields= and attr.* filters work as for /products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String fields,
+                                                                @RequestParam Map<String, String> params) {
+        Set<ProductField> requested;
+        AttributeFilter filter;
+        try {
+            requested = ProductField.parse(fields);
+            filter = AttributeFilter.parse(params);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            productService.exportProducts(requested, filter, product -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(product));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    // Client went away; abort the cursor
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+    
+    @GetMapping("/products/{id}")
+    @Operation(summary = "Get product", description = "One saved product by ID, served from the product cache when present")
+    public ResponseEntity<ProductDetails> getProduct(@PathVariable long id) {
+        return productService.getProduct(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/product-cache")
+    @Operation(summary = "Product cache statistics", description = "Hits, misses, evictions and size of the in-process product cache")
+    public ResponseEntity<ProductCache.Stats> productCacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    @GetMapping("/url-filter")
+    @Operation(summary = "URL filter statistics", description = "Size and hit/false-positive counts of the in-memory filter of stored product URLs")
+    public ResponseEntity<UrlFilter.Stats> urlFilterStats() {
+        return ResponseEntity.ok(urlFilter.stats());
     }
     
     @GetMapping("/health")
@@ -11,15 +11,23 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_details")
+@Table(name = "product_details", indexes = {
+        // Keyset pagination and export order
+        @Index(name = "idx_product_details_created", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ProductDetails {
     
+    /** Increment of product_details_seq; each nextval reserves the block of IDs ending at the returned value */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /** Pooled sequence so Hibernate can batch inserts; IDs are handed out 50 at a time per JVM */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_details_seq")
+    @SequenceGenerator(name = "product_details_seq", sequenceName = "product_details_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "url", unique = true, nullable = false, columnDefinition = "TEXT")
@@ -51,6 +59,10 @@ public class ProductDetails {
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
+
+    /** When the row was last extracted from the product's own page; null for rows known only from listing cards */
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
     
     @PrePersist
     protected void onCreate() {
@@ -1,6 +1,10 @@
 package com.scraper.consumer.listener;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scraper.consumer.dto.ProductInfo;
+import com.scraper.consumer.dto.ProductMessage;
+import com.scraper.consumer.service.ProductEnrichmentService;
 import com.scraper.consumer.service.ProductExtractorService;
 import com.scraper.consumer.service.ProductService;
 import lombok.RequiredArgsConstructor;
@@ -8,6 +12,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -15,15 +23,30 @@ public class UrlMessageListener {
     
     private final ProductExtractorService extractorService;
     private final ProductService productService;
+    private final ProductEnrichmentService enrichmentService;
+    private final ObjectMapper objectMapper;
     
     @RabbitListener(queues = "${queue.name}")
     public void handleMessage(org.springframework.amqp.core.Message message) {
-        String url = new String(message.getBody());
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        // Batches planned by the producer are JSON arrays; single URLs (e.g. /publish) are plain text
+        if (body.stripLeading().startsWith("[")) {
+            handleBatch(body);
+            return;
+        }
+
+        String url = body;
         log.info("Received URL: {}", url);
         
+        if (productService.isFresh(url)) {
+            log.info("Skipping {}: stored product verified within the freshness window", url);
+            return;
+        }
+
         try {
             ProductInfo productInfo = extractorService.extractProductInfo(url);
-            productService.saveProduct(url, productInfo);
+            productService.saveVerified(url, productInfo);
             log.info("Successfully processed URL: {}", url);
         } catch (Exception e) {
             log.error("Error processing URL {}: {}", url, e.getMessage());
@@ -31,5 +54,17 @@ public class UrlMessageListener {
             throw new RuntimeException("Failed to process URL: " + url, e);
         }
     }
-}
 
+    private void handleBatch(String body) {
+        List<ProductMessage> batch;
+        try {
+            batch = objectMapper.readValue(body, new TypeReference<List<ProductMessage>>() {});
+        } catch (IOException e) {
+            // Redelivering a malformed batch would fail the same way
+            log.error("Discarding unreadable product batch: {}", e.getMessage());
+            return;
+        }
+        log.info("Received batch of {} products", batch.size());
+        enrichmentService.processBatch(batch);
+    }
+}
@@ -7,8 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface ProductDetailsRepository extends JpaRepository<ProductDetails, Long> {
+public interface ProductDetailsRepository extends JpaRepository<ProductDetails, Long>, ProductDetailsUpsert,
+        ProductDetailsProjection {
     Optional<ProductDetails> findByUrl(String url);
-    boolean existsByUrl(String url);
 }
-
@@ -0,0 +1,44 @@
+package com.scraper.consumer.service;
+
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled regexes and CSS selectors used by the product page extraction.
+ * Pattern.compile and Jsoup's selector parsing are both far more expensive than the match itself,
+ * so everything used per page is compiled once here.
+ */
+public final class ExtractionPatterns {
+
+    private ExtractionPatterns() {
+    }
+
+    // eBay item IDs
+
+    public static final Pattern EBAY_ITEM_ID = Pattern.compile("/(?:itm|i|p)/(\\d+)");
+    public static final Pattern EBAY_ITEM_ID_SCRIPT = Pattern.compile("itemId\\s*:\\s*['\"]?([0-9]+)['\"]?");
+
+    // eBay product page
+
+    public static final Evaluator EBAY_PRODUCT_TITLE = QueryParser.parse("h1.x-item-title__mainTitle, h1#itemTitle, h1[itemprop=name], h1.ux-textspans");
+    public static final Evaluator EBAY_PRODUCT_PRICE = QueryParser.parse(".x-price-primary, span#prcIsum, span[itemprop=price], .notranslate");
+    public static final Evaluator EBAY_PRODUCT_PRICE_LOOSE = QueryParser.parse("[class*='price'], .price-primary");
+    public static final Evaluator EBAY_PRODUCT_DESCRIPTION = QueryParser.parse("#viTabs_0_is, .vi-VR-cvipContent, .vim x-item-description");
+    public static final Evaluator EBAY_PRODUCT_LOCATION = QueryParser.parse(".ux-seller-section__itemLocation, #itemLocation, .ux-labels-values__values-content");
+    public static final Evaluator EBAY_PRODUCT_CONDITION = QueryParser.parse("#viTabs_0_is .u-flL.condText, .x-item-condition-label, .u-flL");
+    public static final Evaluator EBAY_PRODUCT_SHIPPING = QueryParser.parse("#fshippingCost, .shipping-section, .u-flL.shipping3rd");
+    public static final Evaluator EBAY_PRODUCT_SELLER = QueryParser.parse("#mbgLink, .seller-info__name");
+    public static final Evaluator EBAY_PRODUCT_QUANTITY = QueryParser.parse("#qtySubTxt, .qtyAvailable");
+    public static final Evaluator EBAY_PRODUCT_BRAND = QueryParser.parse("[itemprop=brand], .ux-labels-values__labels[aria-label*='Brand'] + .ux-labels-values__values");
+    public static final Evaluator EBAY_PRODUCT_IMAGE = QueryParser.parse("#icImg, img[itemprop=image], .img-wrapper img");
+    public static final Evaluator EBAY_SPEC_LABEL = QueryParser.parse(".ux-labels-values__labels, .itemAttr");
+    public static final Evaluator EBAY_SPEC_VALUE = QueryParser.parse(".ux-labels-values__values");
+    public static final Evaluator HEADING = QueryParser.parse("h1");
+
+    // Generic pages
+
+    public static final Evaluator GENERIC_TITLE = QueryParser.parse("title, h1");
+    public static final Evaluator GENERIC_PRICE = QueryParser.parse("[class*='price'], .price, .amount");
+}
@@ -0,0 +1,376 @@
+package com.scraper.consumer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * On-disk HTTP cache for fetched pages.
+ * Responses with an ETag or Last-Modified are revalidated with a conditional GET and served from disk on 304.
+ * Responses without validators are served from disk until the TTL expires.
+ * Each entry is one file: the header and body sizes, a properties header with the validators, then the body
+ * stored decoded (after gzip/deflate). Entries are written to a temp file and renamed into place once the
+ * body is complete, so a reader always sees a header and body from the same response.
+ * The directory is kept under scraper.http-cache.max-size; entries not used for scraper.http-cache.max-age
+ * are removed, then the least recently used ones.
+ */
+@Component
+@Slf4j
+public class HttpPageCache {
+
+    private static final String SUFFIX = ".page";
+    /** Header size (int) and body size (long) lead every entry file */
+    private static final int PREFIX_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    /** Temp files older than this were left behind by a crash */
+    private static final Duration STALE_TEMP_AGE = Duration.ofHours(1);
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(10);
+
+    @Value("${scraper.http-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scraper.http-cache.directory:${java.io.tmpdir}/scraper-http-cache}")
+    private String directory;
+
+    /** How long responses without validators are served without going to the origin */
+    @Value("${scraper.http-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${scraper.http-cache.max-size:256MB}")
+    private DataSize maxSize;
+
+    /** Entries not read or revalidated for this long are removed */
+    @Value("${scraper.http-cache.max-age:7d}")
+    private Duration maxAge;
+
+    /** Bytes committed since the last sweep counted, so a sweep runs as soon as the limit may be exceeded */
+    private final AtomicLong approximateBytes = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile Instant lastSweep = Instant.EPOCH;
+
+    /**
+     * A cached response, with its body opened from the same file the header was read from. Callers that do
+     * not read the body must close the entry.
+     */
+    public record Entry(String url, String etag, String lastModified, String contentType, String finalUrl,
+                        Instant storedAt, InputStream body) implements Closeable {
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    public Optional<Entry> lookup(String url) {
+        if (!enabled) return Optional.empty();
+        Path file = dir().resolve(keyOf(url) + SUFFIX);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.debug("Unreadable cache entry for {}: {}", url, e.getMessage());
+            return Optional.empty();
+        }
+
+        try {
+            // The open channel keeps this file's contents even if it is replaced or evicted meanwhile
+            long fileSize = channel.size();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            int headerSize = in.readInt();
+            long bodySize = in.readLong();
+            if (headerSize <= 0 || headerSize > MAX_HEADER_SIZE) throw new IOException("Bad header size " + headerSize);
+            byte[] header = in.readNBytes(headerSize);
+            Properties props = new Properties();
+            props.load(new StringReader(new String(header, StandardCharsets.UTF_8)));
+
+            // Guard against hash collisions and files that do not hold the whole body
+            if (!url.equals(props.getProperty("url")) || fileSize != PREFIX_SIZE + headerSize + bodySize) {
+                in.close();
+                return Optional.empty();
+            }
+            touch(file);
+            return Optional.of(new Entry(
+                    url,
+                    props.getProperty("etag"),
+                    props.getProperty("lastModified"),
+                    props.getProperty("contentType"),
+                    props.getProperty("finalUrl", url),
+                    Instant.ofEpochMilli(Long.parseLong(props.getProperty("storedAt", "0"))),
+                    in));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unreadable cache entry for {}: {}", url, e.getMessage());
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+                // Already failed
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * TTL mode: entries without validators can be used without contacting the origin while still fresh
+     */
+    public boolean isFresh(Entry entry) {
+        return !entry.hasValidators() && entry.storedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    /**
+     * Wrap a response body so it is written to the cache while being read.
+     * The entry is committed only if the body was read to the end; partial reads are discarded, so a body
+     * the caller stops reading early (e.g. at its size limit) is never cached.
+     */
+    public InputStream store(String url, HttpResponse<?> response, InputStream body) {
+        if (!enabled || response.statusCode() != 200) return body;
+        String cacheControl = response.headers().firstValue("Cache-Control").orElse("").toLowerCase();
+        if (cacheControl.contains("no-store")) return body;
+
+        Properties props = new Properties();
+        props.setProperty("url", url);
+        props.setProperty("finalUrl", response.uri().toString());
+        props.setProperty("storedAt", String.valueOf(System.currentTimeMillis()));
+        response.headers().firstValue("ETag").ifPresent(v -> props.setProperty("etag", v));
+        response.headers().firstValue("Last-Modified").ifPresent(v -> props.setProperty("lastModified", v));
+        response.headers().firstValue("Content-Type").ifPresent(v -> props.setProperty("contentType", v));
+
+        try {
+            Files.createDirectories(dir());
+            Path tmp = Files.createTempFile(dir(), keyOf(url), ".tmp");
+            return new CachingInputStream(body, tmp, keyOf(url), props);
+        } catch (IOException e) {
+            log.debug("Could not open cache file for {}: {}", url, e.getMessage());
+            return body;
+        }
+    }
+
+    private Path dir() {
+        return Paths.get(directory);
+    }
+
+    private static String keyOf(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The modification time doubles as last use, which the sweep evicts by
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException ignore) {
+            // Evicted meanwhile; the open channel still serves it
+        }
+    }
+
+    private void maybeSweep(long committedBytes) {
+        long bytes = approximateBytes.addAndGet(committedBytes);
+        boolean due = bytes > maxSize.toBytes() || lastSweep.plus(SWEEP_INTERVAL).isBefore(Instant.now());
+        if (!due || !sweeping.compareAndSet(false, true)) return;
+        try {
+            sweep();
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Remove entries unused for max-age, then the least recently used until the directory is below 90% of
+     * max-size, so sweeps do not run on every commit once the cache is full
+     */
+    private void sweep() {
+        record CachedFile(Path path, long size, long lastUsed) {}
+        Instant now = Instant.now();
+        long expiredBefore = now.minus(maxAge).toEpochMilli();
+        long staleTempBefore = now.minus(STALE_TEMP_AGE).toEpochMilli();
+        List<CachedFile> files = new ArrayList<>();
+        int removed = 0;
+        try (Stream<Path> listing = Files.list(dir())) {
+            for (Path path : (Iterable<Path>) listing::iterator) {
+                try {
+                    long lastUsed = Files.getLastModifiedTime(path).toMillis();
+                    String name = path.getFileName().toString();
+                    boolean expired;
+                    if (name.endsWith(SUFFIX)) {
+                        expired = lastUsed < expiredBefore;
+                        if (!expired) files.add(new CachedFile(path, Files.size(path), lastUsed));
+                    } else if (name.endsWith(".tmp")) {
+                        expired = lastUsed < staleTempBefore;
+                    } else {
+                        // .body/.meta pairs of the earlier two-file layout are never read again
+                        expired = name.endsWith(".body") || name.endsWith(".meta");
+                    }
+                    if (expired && Files.deleteIfExists(path)) removed++;
+                } catch (IOException e) {
+                    // Replaced or removed by another thread
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Could not sweep {}: {}", dir(), e.getMessage());
+            return;
+        }
+
+        long total = files.stream().mapToLong(CachedFile::size).sum();
+        long target = (long) (maxSize.toBytes() * 0.9);
+        if (total > maxSize.toBytes()) {
+            files.sort(Comparator.comparingLong(CachedFile::lastUsed));
+            for (CachedFile file : files) {
+                if (total <= target) break;
+                try {
+                    if (Files.deleteIfExists(file.path())) removed++;
+                    total -= file.size();
+                } catch (IOException e) {
+                    log.debug("Could not evict {}: {}", file.path(), e.getMessage());
+                }
+            }
+        }
+        approximateBytes.set(total);
+        lastSweep = now;
+        if (removed > 0) log.info("Page cache sweep removed {} files, {} bytes remain", removed, total);
+    }
+
+    private class CachingInputStream extends FilterInputStream {
+        private final Path tmp;
+        private final String key;
+        private final FileChannel channel;
+        private final OutputStream copy;
+        private final String url;
+        private long bodySize;
+        private boolean complete;
+        private boolean failed;
+        private boolean closed;
+
+        CachingInputStream(InputStream in, Path tmp, String key, Properties props) throws IOException {
+            super(in);
+            this.tmp = tmp;
+            this.key = key;
+            this.url = props.getProperty("url");
+            StringWriter headerText = new StringWriter();
+            props.store(headerText, null);
+            byte[] header = headerText.toString().getBytes(StandardCharsets.UTF_8);
+
+            this.channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+            this.copy = new BufferedOutputStream(Channels.newOutputStream(channel));
+            try {
+                DataOutputStream prefix = new DataOutputStream(copy);
+                prefix.writeInt(header.length);
+                // Body size is filled in on commit
+                prefix.writeLong(-1);
+                prefix.write(header);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) complete = true; else write(new byte[]{(byte) b}, 0, 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n < 0) complete = true; else write(buf, off, n);
+            return n;
+        }
+
+        private void write(byte[] buf, int off, int len) {
+            if (failed) return;
+            try {
+                copy.write(buf, off, len);
+                bodySize += len;
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The parser may close the stream before our try-with-resources does
+            if (closed) return;
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                commit();
+            }
+        }
+
+        /**
+         * Record the body size and rename the file into place, or drop it if the body was not read to the end
+         */
+        private void commit() {
+            try {
+                try (channel) {
+                    copy.flush();
+                    if (!complete || failed) return;
+                    channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, bodySize), Integer.BYTES);
+                    long size = channel.size();
+                    channel.close();
+                    Files.move(tmp, dir().resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    log.debug("Cached {}", url);
+                    maybeSweep(size);
+                }
+            } catch (IOException e) {
+                log.debug("Could not commit cache entry for {}: {}", url, e.getMessage());
+            } finally {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignore) {
+                    // Swept later as a stale temp file
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.scraper.consumer.service;
+
+import com.scraper.consumer.dto.ProductInfo;
+import com.scraper.consumer.dto.ProductMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Processes product batches planned by the producer: products whose listing card had every required
+ * field are saved directly, the rest are enriched from their detail pages unless they were verified
+ * within scraper.product-cache.freshness.
+ * The detail fetches of a batch run concurrently on virtual threads; the per-host rate limiter in
+ * {@link PageFetcher} still paces them. The batch is then saved with one batched upsert. A product whose
+ * detail page could not be fetched is saved from its listing card, unverified, only if it is not stored
+ * yet; a stored row is left alone rather than overwritten with card data.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductEnrichmentService {
+
+    private final ProductExtractorService extractorService;
+    private final ProductService productService;
+
+    /**
+     * Save every product of the batch; a failing product is logged and does not fail the others
+     */
+    public void processBatch(List<ProductMessage> batch) {
+        Map<String, ProductInfo> ready = new LinkedHashMap<>();
+        List<ProductMessage> needsFetch = new ArrayList<>();
+        int fresh = 0;
+        for (ProductMessage message : batch) {
+            if (message.getMissingFields() == null || message.getMissingFields().isEmpty()) {
+                ready.putIfAbsent(message.getUrl(), message.getProduct());
+            } else if (productService.isFresh(message.getUrl())) {
+                // Verified recently: neither refetched nor overwritten with card data
+                fresh++;
+            } else {
+                needsFetch.add(message);
+            }
+        }
+
+        List<Future<ProductInfo>> fetches = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ProductMessage message : needsFetch) {
+                fetches.add(executor.submit(() -> extractorService.extractProductInfo(message.getUrl())));
+            }
+        }
+
+        int fromListing = ready.size();
+        int fetchFailed = 0;
+        Set<String> enriched = new HashSet<>();
+        for (int i = 0; i < needsFetch.size(); i++) {
+            ProductMessage message = needsFetch.get(i);
+            try {
+                ProductInfo detail = fetches.get(i).get();
+                if (ready.putIfAbsent(message.getUrl(), merge(detail, message.getProduct())) == null) {
+                    enriched.add(message.getUrl());
+                }
+            } catch (ExecutionException e) {
+                log.error("Detail fetch failed for {} (missing {}): {}", message.getUrl(),
+                        message.getMissingFields(), e.getCause().getMessage());
+                fetchFailed++;
+                // Acking the batch would otherwise lose a new product for good
+                if (message.getProduct() != null && !productService.isStored(message.getUrl())) {
+                    ready.putIfAbsent(message.getUrl(), message.getProduct());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        int inserted = save(ready, enriched);
+        log.info("Batch of {}: {} from listing data, {} verified recently, {} of {} enriched from detail pages "
+                + "({} failed), {} new rows inserted", batch.size(), fromListing, fresh, enriched.size(),
+                needsFetch.size(), fetchFailed, inserted);
+    }
+
+    /**
+     * One batched upsert for the whole batch; if it fails the products are saved one by one so a single
+     * bad row does not lose the others
+     */
+    private int save(Map<String, ProductInfo> products, Set<String> enriched) {
+        try {
+            return productService.saveProducts(products, enriched);
+        } catch (Exception e) {
+            log.warn("Batched save of {} products failed, saving individually: {}", products.size(), e.getMessage());
+        }
+        int saved = 0;
+        for (Map.Entry<String, ProductInfo> entry : products.entrySet()) {
+            try {
+                ProductInfo info = entry.getValue() != null ? entry.getValue() : new ProductInfo();
+                if (enriched.contains(entry.getKey())) {
+                    productService.saveVerified(entry.getKey(), info);
+                } else {
+                    productService.saveProduct(entry.getKey(), info);
+                }
+                saved++;
+            } catch (Exception e) {
+                log.error("Error saving product {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Detail page data, with the gaps filled from the listing card
+     */
+    static ProductInfo merge(ProductInfo detail, ProductInfo listing) {
+        if (listing == null) return detail;
+        return ProductInfo.builder()
+                .title(firstNonBlank(detail.getTitle(), listing.getTitle()))
+                .description(firstNonBlank(detail.getDescription(), listing.getDescription()))
+                .price(firstNonBlank(detail.getPrice(), listing.getPrice()))
+                .location(firstNonBlank(detail.getLocation(), listing.getLocation()))
+                .adInfo(mergeMaps(detail.getAdInfo(), listing.getAdInfo()))
+                .generalInfo(mergeMaps(detail.getGeneralInfo(), listing.getGeneralInfo()))
+                .features(mergeMaps(detail.getFeatures(), listing.getFeatures()))
+                .build();
+    }
+
+    private static Map<String, String> mergeMaps(Map<String, String> detail, Map<String, String> listing) {
+        if (listing == null || listing.isEmpty()) return detail;
+        Map<String, String> merged = detail != null ? new HashMap<>(detail) : new HashMap<>();
+        listing.forEach(merged::putIfAbsent);
+        return merged;
+    }
+
+    private static String firstNonBlank(String preferred, String fallback) {
+        return preferred != null && !preferred.isBlank() ? preferred : fallback;
+    }
+}
@@ -1,8 +1,8 @@
 package com.scraper.consumer.service;
 
 import com.scraper.consumer.dto.ProductInfo;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -13,19 +13,23 @@ import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.scraper.consumer.service.ExtractionPatterns.*;
+
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class ProductExtractorService {
     
-    private static final int TIMEOUT = 30000;
+    private final PageFetcher pageFetcher;
     
-    public ProductInfo extractProductInfo(String url) {
+    /**
+     * Fetch the product page and read its fields
+     *
+     * @throws IOException when the page cannot be fetched, so callers can skip or redeliver the product
+     */
+    public ProductInfo extractProductInfo(String url) throws IOException {
         try {
-            Document doc = Jsoup.connect(url)
-                    .timeout(TIMEOUT)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8")
-                    .get();
+            Document doc = pageFetcher.fetch(url);
 
             String host = "";
             try { host = new URI(url).getHost(); } catch (Exception ignore) {}
@@ -34,31 +38,31 @@ public class ProductExtractorService {
 
             if (host != null && host.toLowerCase().contains("ebay")) {
                 // Title
-                Element titleEl = doc.selectFirst("h1.x-item-title__mainTitle, h1#itemTitle, h1[itemprop=name], h1.ux-textspans");
+                Element titleEl = doc.selectFirst(EBAY_PRODUCT_TITLE);
                 if (titleEl == null) {
-                    titleEl = doc.selectFirst("h1");
+                    titleEl = doc.selectFirst(HEADING);
                 }
                 if (titleEl != null) {
                     builder.title(titleEl.text().trim());
                 }
 
                 // Price
-                Element priceEl = doc.selectFirst(".x-price-primary, span#prcIsum, span[itemprop=price], .notranslate");
+                Element priceEl = doc.selectFirst(EBAY_PRODUCT_PRICE);
                 if (priceEl == null) {
-                    priceEl = doc.selectFirst("[class*='price'], .price-primary");
+                    priceEl = doc.selectFirst(EBAY_PRODUCT_PRICE_LOOSE);
                 }
                 if (priceEl != null) {
                     builder.price(priceEl.text().trim());
                 }
 
                 // Description
-                Element descEl = doc.selectFirst("#viTabs_0_is, .vi-VR-cvipContent, .vim x-item-description");
+                Element descEl = doc.selectFirst(EBAY_PRODUCT_DESCRIPTION);
                 if (descEl != null) {
                     builder.description(descEl.text().trim());
                 }
 
                 // Location
-                Element locEl = doc.selectFirst(".ux-seller-section__itemLocation, #itemLocation, .ux-labels-values__values-content");
+                Element locEl = doc.selectFirst(EBAY_PRODUCT_LOCATION);
                 if (locEl != null) {
                     builder.location(locEl.text().trim());
                 }
@@ -68,19 +72,19 @@ public class ProductExtractorService {
                 
                 // Item ID from URL or page
                 try {
-                    java.util.regex.Matcher itmMatcher = java.util.regex.Pattern.compile("/(?:itm|i|p)/(\\d+)").matcher(url);
+                    java.util.regex.Matcher itmMatcher = EBAY_ITEM_ID.matcher(url);
                     if (itmMatcher.find()) {
                         adInfo.put("Item ID", itmMatcher.group(1));
                     }
                     // Also check page source
-                    java.util.regex.Matcher itemIdMatcher = java.util.regex.Pattern.compile("itemId\\s*:\\s*['\"]?([0-9]+)['\"]?").matcher(doc.html());
+                    java.util.regex.Matcher itemIdMatcher = EBAY_ITEM_ID_SCRIPT.matcher(doc.html());
                     if (itemIdMatcher.find()) {
                         adInfo.put("Item ID", itemIdMatcher.group(1));
                     }
                 } catch (Exception ignoreId) {}
                 
                 // Condition
-                Element conditionEl = doc.selectFirst("#viTabs_0_is .u-flL.condText, .x-item-condition-label, .u-flL");
+                Element conditionEl = doc.selectFirst(EBAY_PRODUCT_CONDITION);
                 if (conditionEl != null) {
                     String condition = conditionEl.text().trim();
                     if (!condition.isEmpty()) {
@@ -89,25 +93,25 @@ public class ProductExtractorService {
                 }
                 
                 // Shipping
-                Element shippingEl = doc.selectFirst("#fshippingCost, .shipping-section, .u-flL.shipping3rd");
+                Element shippingEl = doc.selectFirst(EBAY_PRODUCT_SHIPPING);
                 if (shippingEl != null) {
                     adInfo.put("Shipping", shippingEl.text().trim());
                 }
                 
                 // Seller info
-                Element sellerEl = doc.selectFirst("#mbgLink, .seller-info__name");
+                Element sellerEl = doc.selectFirst(EBAY_PRODUCT_SELLER);
                 if (sellerEl != null) {
                     adInfo.put("Seller", sellerEl.text().trim());
                 }
                 
                 // Quantity available
-                Element qtyEl = doc.selectFirst("#qtySubTxt, .qtyAvailable");
+                Element qtyEl = doc.selectFirst(EBAY_PRODUCT_QUANTITY);
                 if (qtyEl != null) {
                     adInfo.put("Quantity", qtyEl.text().trim());
                 }
                 
                 // Brand
-                Element brandEl = doc.selectFirst("[itemprop=brand], .ux-labels-values__labels[aria-label*='Brand'] + .ux-labels-values__values");
+                Element brandEl = doc.selectFirst(EBAY_PRODUCT_BRAND);
                 if (brandEl != null) {
                     adInfo.put("Brand", brandEl.text().trim());
                 }
@@ -118,7 +122,7 @@ public class ProductExtractorService {
                 Map<String, String> generalInfo = new HashMap<>();
                 
                 // Extract image
-                Element imgEl = doc.selectFirst("#icImg, img[itemprop=image], .img-wrapper img");
+                Element imgEl = doc.selectFirst(EBAY_PRODUCT_IMAGE);
                 if (imgEl != null) {
                     String imgSrc = imgEl.attr("src");
                     if (imgSrc == null || imgSrc.isEmpty()) {
@@ -130,12 +134,12 @@ public class ProductExtractorService {
                 }
                 
                 // Extract specifications/features
-                Elements specs = doc.select(".ux-labels-values__labels, .itemAttr");
+                Elements specs = doc.select(EBAY_SPEC_LABEL);
                 for (Element spec : specs) {
                     String label = spec.text().trim();
                     Element valueEl = spec.nextElementSibling();
                     if (valueEl == null) {
-                        valueEl = spec.parent().selectFirst(".ux-labels-values__values");
+                        valueEl = spec.parent().selectFirst(EBAY_SPEC_VALUE);
                     }
                     if (valueEl != null && !label.isEmpty()) {
                         String value = valueEl.text().trim();
@@ -151,11 +155,11 @@ public class ProductExtractorService {
             }
 
             // Generic fallback for non-eBay sites
-            Element titleEl = doc.selectFirst("title, h1");
+            Element titleEl = doc.selectFirst(GENERIC_TITLE);
             if (titleEl != null) {
                 builder.title(titleEl.text().trim());
             }
-            Element priceEl = doc.selectFirst("[class*='price'], .price, .amount");
+            Element priceEl = doc.selectFirst(GENERIC_PRICE);
             if (priceEl != null) {
                 builder.price(priceEl.text().trim());
             }
@@ -164,7 +168,7 @@ public class ProductExtractorService {
 
         } catch (IOException e) {
             log.error("Error extracting product info from {}: {}", url, e.getMessage());
-            throw new RuntimeException("Failed to extract product info: " + e.getMessage(), e);
+            throw e;
         }
     }
 }
@@ -2,15 +2,32 @@ package com.scraper.consumer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.consumer.dto.ProductCursor;
 import com.scraper.consumer.dto.ProductInfo;
 import com.scraper.consumer.entity.ProductDetails;
+import com.scraper.consumer.repository.AttributeFilter;
+import com.scraper.consumer.repository.ProductDetailsProjection;
 import com.scraper.consumer.repository.ProductDetailsRepository;
+import com.scraper.consumer.repository.ProductDetailsUpsert;
+import com.scraper.consumer.repository.ProductField;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -20,14 +37,34 @@ public class ProductService {
     private final ProductDetailsRepository repository;
     private final ProductExtractorService extractorService;
     private final ObjectMapper objectMapper;
+    private final UrlFilter urlFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCache productCache;
+
+    /** How long a stored product counts as current before a message fetches its page again */
+    @Value("${scraper.product-cache.freshness:1h}")
+    private Duration freshness;
+
+    /** Rows the export cursor fetches per round trip */
+    @Value("${scraper.products.export-fetch-size:1000}")
+    private int exportFetchSize;
     
-    @Transactional
-    public void saveProduct(String url, ProductInfo productInfo) {
-        if (repository.existsByUrl(url)) {
-            log.debug("Product already exists: {}", url);
-            return;
-        }
-        
+    /**
+     * Insert the product, or update the stored row with the same URL when any field changed,
+     * in one statement. For data from a listing card: a changed row is no longer verified.
+     */
+    public ProductDetailsUpsert.Outcome saveProduct(String url, ProductInfo productInfo) {
+        return save(url, productInfo, null);
+    }
+
+    /**
+     * Save a product just extracted from its own page and mark it as verified now, even if nothing changed
+     */
+    public ProductDetailsUpsert.Outcome saveVerified(String url, ProductInfo productInfo) {
+        return save(url, productInfo, LocalDateTime.now());
+    }
+
+    private ProductDetailsUpsert.Outcome save(String url, ProductInfo productInfo, LocalDateTime verifiedAt) {
         try {
             // Truncate URL and other fields to prevent DB errors
             String safeUrl = truncate(url, 500);
@@ -35,19 +72,16 @@ public class ProductService {
                 log.warn("URL truncated from {} to {} characters to fit DB column", url.length(), safeUrl.length());
             }
             
-            ProductDetails productDetails = ProductDetails.builder()
-                    .url(safeUrl)
-                    .title(productInfo.getTitle())
-                    .description(productInfo.getDescription())
-                    .price(truncate(productInfo.getPrice(), 255))
-                    .location(truncate(productInfo.getLocation(), 255))
-                    .adInfo(toJson(productInfo.getAdInfo()))
-                    .generalInfo(toJson(productInfo.getGeneralInfo()))
-                    .features(toJson(productInfo.getFeatures()))
-                    .build();
-            
-            repository.save(productDetails);
-            log.info("Product saved successfully: {}", url);
+            ProductDetails entity = toEntity(safeUrl, productInfo);
+            entity.setVerifiedAt(verifiedAt);
+            ProductDetailsUpsert.Outcome outcome = repository.upsert(entity);
+            if (outcome == ProductDetailsUpsert.Outcome.UNCHANGED && verifiedAt != null) {
+                repository.markVerified(safeUrl, verifiedAt);
+            }
+            if (outcome == ProductDetailsUpsert.Outcome.INSERTED) urlFilter.add(safeUrl);
+            if (outcome != ProductDetailsUpsert.Outcome.UNCHANGED || verifiedAt != null) productCache.invalidate(safeUrl);
+            log.info("Product {}: {}", outcome.name().toLowerCase(), url);
+            return outcome;
             
         } catch (Exception e) {
             log.error("Error saving product {}: {}", url, e.getMessage());
@@ -55,8 +89,133 @@ public class ProductService {
         }
     }
     
-    public List<ProductDetails> getAllProducts() {
-        return repository.findAll();
+    /**
+     * Whether the product stored for this URL was verified within scraper.product-cache.freshness.
+     * URLs the filter rules out are certainly new and are not looked up.
+     */
+    public boolean isFresh(String url) {
+        Instant threshold = Instant.now().minus(freshness);
+        return stored(url).filter(lookup -> lookup.verifiedAt().isAfter(threshold)).isPresent();
+    }
+
+    /** Whether any product is stored for this URL, verified or not */
+    public boolean isStored(String url) {
+        return stored(url).isPresent();
+    }
+
+    private Optional<ProductCache.Lookup> stored(String url) {
+        String safeUrl = truncate(url, 500);
+        if (!urlFilter.mightContain(safeUrl)) return Optional.empty();
+        Optional<ProductCache.Lookup> stored = productCache.getByUrl(safeUrl);
+        if (stored.isEmpty()) urlFilter.recordFalsePositives(1);
+        return stored;
+    }
+
+    public Optional<ProductDetails> getProduct(long id) {
+        return productCache.getById(id);
+    }
+
+    /**
+     * Upsert a batch of products in one transaction with multi-row INSERT ... ON CONFLICT DO UPDATE
+     * statements: new URLs are inserted and stored rows whose fields changed are updated. Updated products
+     * leave the cache once the transaction has committed. Products in verifiedUrls were extracted from
+     * their own page and are stamped as verified in the same transaction, whether or not they changed;
+     * the rest are listing card data.
+     * Returns the number of products inserted.
+     */
+    public int saveProducts(Map<String, ProductInfo> products, Set<String> verifiedUrls) {
+        Map<String, ProductInfo> byUrl = new LinkedHashMap<>();
+        Set<String> verified = new HashSet<>();
+        products.forEach((url, info) -> {
+            String safeUrl = truncate(url, 500);
+            byUrl.putIfAbsent(safeUrl, info);
+            if (verifiedUrls.contains(url)) verified.add(safeUrl);
+        });
+        if (byUrl.isEmpty()) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductDetails> entities = new ArrayList<>(byUrl.size());
+        byUrl.forEach((url, info) -> {
+            ProductDetails entity = toEntity(url, info != null ? info : new ProductInfo());
+            if (verified.contains(url)) entity.setVerifiedAt(now);
+            entities.add(entity);
+        });
+        Map<String, ProductDetailsUpsert.Outcome> outcomes = transactionTemplate.execute(status -> {
+            Map<String, ProductDetailsUpsert.Outcome> result = repository.upsertAll(entities);
+            // Changed rows took verified_at from the entity; unchanged ones are stamped here
+            List<String> unchangedVerified = verified.stream()
+                    .filter(url -> result.get(url) == ProductDetailsUpsert.Outcome.UNCHANGED)
+                    .toList();
+            repository.markVerified(unchangedVerified, now);
+            return result;
+        });
+
+        int inserted = 0;
+        int updated = 0;
+        for (Map.Entry<String, ProductDetailsUpsert.Outcome> entry : outcomes.entrySet()) {
+            switch (entry.getValue()) {
+                case INSERTED -> {
+                    urlFilter.add(entry.getKey());
+                    inserted++;
+                }
+                case UPDATED -> {
+                    productCache.invalidate(entry.getKey());
+                    updated++;
+                }
+                case UNCHANGED -> {
+                    if (verified.contains(entry.getKey())) productCache.invalidate(entry.getKey());
+                }
+            }
+        }
+        log.info("Saved {} new products, updated {} ({} unchanged)", inserted, updated, byUrl.size() - inserted - updated);
+        return inserted;
+    }
+
+    /** Products as their requested fields keyed by JSON name */
+    public record Page(List<Map<String, Object>> products, String nextCursor) {}
+
+    /**
+     * One page of the products matching the filter in (created_at, id) order, starting after the cursor
+     * (null for the first page), reading only the columns of the requested fields. nextCursor is null on
+     * the last page.
+     *
+     * @throws IllegalArgumentException for a malformed cursor
+     */
+    public Page getProducts(String cursor, int limit, Set<ProductField> fields, AttributeFilter filter) {
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor);
+        List<ProductDetailsProjection.ProjectedRow> rows = repository.findPage(fields, filter,
+                after != null ? after.createdAt() : null, after != null ? after.id() : 0, limit);
+
+        String next = null;
+        if (rows.size() == limit) {
+            ProductDetailsProjection.ProjectedRow last = rows.get(rows.size() - 1);
+            next = new ProductCursor(last.createdAt(), last.id()).encode();
+        }
+        return new Page(rows.stream().map(ProductDetailsProjection.ProjectedRow::fields).toList(), next);
+    }
+
+    /**
+     * Every product matching the filter in (created_at, id) order, read through a forward-only cursor of
+     * scraper.products.export-fetch-size rows so memory stays flat however large the table is.
+     * The cursor needs a transaction; a read-only one lets Postgres skip write bookkeeping and Hibernate
+     * skip flushing.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(Set<ProductField> fields, AttributeFilter filter, Consumer<Map<String, Object>> sink) {
+        repository.streamAll(fields, filter, exportFetchSize, sink);
+    }
+    
+    private ProductDetails toEntity(String safeUrl, ProductInfo productInfo) {
+        return ProductDetails.builder()
+                .url(safeUrl)
+                .title(productInfo.getTitle())
+                .description(productInfo.getDescription())
+                .price(truncate(productInfo.getPrice(), 255))
+                .location(truncate(productInfo.getLocation(), 255))
+                .adInfo(toJson(productInfo.getAdInfo()))
+                .generalInfo(toJson(productInfo.getGeneralInfo()))
+                .features(toJson(productInfo.getFeatures()))
+                .build();
     }
     
     private String toJson(Object obj) {
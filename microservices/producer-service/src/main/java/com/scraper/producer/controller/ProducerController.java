@@ -1,5 +1,8 @@
 package com.scraper.producer.controller;
 
+import com.scraper.producer.dto.ProductInfo;
+import com.scraper.producer.dto.ProductMessage;
+import com.scraper.producer.service.EnrichmentPlanner;
 import com.scraper.producer.service.MessageProducerService;
 import com.scraper.producer.service.WebScraperService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -22,23 +25,34 @@ public class ProducerController {
     
     private final WebScraperService scraperService;
     private final MessageProducerService messageProducerService;
+    private final EnrichmentPlanner enrichmentPlanner;
     
     @PostMapping("/start")
     @Operation(summary = "Start scraping and publish URLs", 
                description = "Start scraping product URLs from eBay and publish them to RabbitMQ")
     public ResponseEntity<Map<String, Object>> startScraping(
             @RequestParam(defaultValue = "https://www.ebay.com/sch/i.html?_nkw=cell+phones") String startingUrl,
-            @RequestParam(defaultValue = "10") int maxPages) {
+            @RequestParam(defaultValue = "10") int maxPages,
+            @RequestParam(defaultValue = "false") boolean concurrent) {
         
-        log.info("Starting scraping from: {} with max pages: {}", startingUrl, maxPages);
+        log.info("Starting scraping from: {} with max pages: {} (concurrent: {})", startingUrl, maxPages, concurrent);
         
-        List<String> urls = scraperService.scrapeProductUrls(startingUrl, maxPages);
-        messageProducerService.sendUrls(urls);
+        Map<String, ProductInfo> products = scraperService.scrapeListing(startingUrl, maxPages, concurrent);
+        List<List<ProductMessage>> batches = enrichmentPlanner.plan(products);
+        messageProducerService.sendBatches(batches);
+
+        long needDetailFetch = batches.stream()
+                .flatMap(List::stream)
+                .filter(m -> !m.getMissingFields().isEmpty())
+                .count();
         
         return ResponseEntity.ok(Map.of(
                 "message", "Scraping completed and URLs published to queue",
-                "urlsFound", urls.size(),
-                "urlsPublished", urls.size(),
+                "urlsFound", products.size(),
+                "urlsPublished", products.size(),
+                "completeFromListing", products.size() - needDetailFetch,
+                "needDetailFetch", needDetailFetch,
+                "batches", batches.size(),
                 "status", "completed"
         ));
     }
@@ -0,0 +1,22 @@
+package com.scraper.producer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One product in a queue batch: the data read from its listing card and the required fields the card
+ * did not have. Products with no missing fields are saved as-is; the others need a detail page fetch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductMessage {
+    private String url;
+    private ProductInfo product;
+    private List<String> missingFields;
+}
@@ -0,0 +1,96 @@
+package com.scraper.producer.service;
+
+import com.scraper.producer.dto.ProductInfo;
+import com.scraper.producer.dto.ProductMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides per product whether its listing card already carries the required fields or the consumer
+ * has to fetch the detail page, and packs the products into queue batches.
+ * Complete products come first since saving them costs no fetch; products needing a fetch follow,
+ * those missing the most required fields first.
+ */
+@Component
+@Slf4j
+public class EnrichmentPlanner {
+
+    /**
+     * Fields a product needs before it can be saved without a detail fetch: title, price, description,
+     * location, or a key of adInfo / generalInfo such as Condition or Image URL
+     */
+    @Value("${scraper.enrichment.required-fields:title,price,Condition,Image URL}")
+    private List<String> requiredFields;
+
+    @Value("${scraper.enrichment.batch-size:20}")
+    private int batchSize;
+
+    /**
+     * Batches of products in publishing order
+     */
+    public List<List<ProductMessage>> plan(Map<String, ProductInfo> products) {
+        List<ProductMessage> complete = new ArrayList<>();
+        List<ProductMessage> needsFetch = new ArrayList<>();
+        products.forEach((url, product) -> {
+            List<String> missing = missingFields(product);
+            ProductMessage message = ProductMessage.builder()
+                    .url(url)
+                    .product(product)
+                    .missingFields(missing)
+                    .build();
+            (missing.isEmpty() ? complete : needsFetch).add(message);
+        });
+        needsFetch.sort(Comparator.comparingInt((ProductMessage m) -> m.getMissingFields().size()).reversed());
+
+        log.info("Enrichment plan: {} products complete from the listing, {} need a detail fetch",
+                complete.size(), needsFetch.size());
+
+        List<List<ProductMessage>> batches = new ArrayList<>();
+        addBatches(complete, batches);
+        addBatches(needsFetch, batches);
+        return batches;
+    }
+
+    private List<String> missingFields(ProductInfo product) {
+        List<String> missing = new ArrayList<>();
+        for (String field : requiredFields) {
+            String name = field.trim();
+            if (!name.isEmpty() && isBlank(valueOf(product, name))) {
+                missing.add(name);
+            }
+        }
+        return missing;
+    }
+
+    private static String valueOf(ProductInfo product, String field) {
+        if (product == null) return null;
+        return switch (field) {
+            case "title" -> product.getTitle();
+            case "price" -> product.getPrice();
+            case "description" -> product.getDescription();
+            case "location" -> product.getLocation();
+            default -> {
+                String value = product.getAdInfo() != null ? product.getAdInfo().get(field) : null;
+                if (value == null && product.getGeneralInfo() != null) value = product.getGeneralInfo().get(field);
+                yield value;
+            }
+        };
+    }
+
+    private void addBatches(List<ProductMessage> messages, List<List<ProductMessage>> batches) {
+        int size = Math.max(1, batchSize);
+        for (int i = 0; i < messages.size(); i += size) {
+            batches.add(new ArrayList<>(messages.subList(i, Math.min(i + size, messages.size()))));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,42 @@
+package com.scraper.producer.service;
+
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled regexes and CSS selectors used by the listing card extraction.
+ * Pattern.compile and Jsoup's selector parsing are both far more expensive than the match itself,
+ * so everything used per card, per link or per page is compiled once here.
+ */
+public final class ExtractionPatterns {
+
+    private ExtractionPatterns() {
+    }
+
+    // eBay item IDs
+
+    public static final Pattern EBAY_ITEM_ID = Pattern.compile("/(?:itm|i|p)/(\\d+)");
+
+    // eBay listing cards
+
+    public static final Evaluator BROWSE_CARD_LINK = QueryParser.parse("a.brwrvr__item-card__image-link[href], a.bsig__title__wrapper[href], a[href*='/p/'], a[href*='/itm/']");
+    public static final Evaluator BROWSE_CARD_TITLE = QueryParser.parse("h3.bsig__title__text, .bsig__title__text, h3[class*=title]");
+    public static final Evaluator BROWSE_CARD_PRICE = QueryParser.parse(".bsig__price, .bsig__price--displayprice");
+    public static final Evaluator BROWSE_CARD_CONDITION = QueryParser.parse(".bsig__listingCondition, .bsig__listingCondition.secondary");
+    public static final Evaluator BROWSE_CARD_SHIPPING = QueryParser.parse(".bsig__logisticsCost");
+    public static final Evaluator BROWSE_CARD_IMAGE = QueryParser.parse("img.brwrvr__item-card__image[src], img[data-originalsrc]");
+
+    public static final Evaluator SEARCH_ITEM_LINK = QueryParser.parse("a.s-item__link[href], a[href*='/itm/']");
+    public static final Evaluator SEARCH_ITEM_TITLE = QueryParser.parse("h3.s-item__title, span[role=heading], .s-item__title");
+    public static final Evaluator SEARCH_ITEM_PRICE = QueryParser.parse(".s-item__price, .x-price-primary");
+    public static final Evaluator SEARCH_ITEM_CONDITION = QueryParser.parse(".s-item__condition, .SECONDARY_INFO");
+    public static final Evaluator SEARCH_ITEM_SHIPPING = QueryParser.parse(".s-item__shipping, .s-item__freeXDays");
+    public static final Evaluator SEARCH_ITEM_IMAGE = QueryParser.parse("img.s-item__image-img[src], img[src]");
+
+    // Generic pages
+
+    public static final Evaluator ANY_LINK = QueryParser.parse("a[href]");
+    public static final Evaluator GENERIC_NEXT_PAGE = QueryParser.parse("a[rel=next][href], a[aria-label='Next'][href], a[aria-label='Next page'][href], a[href*='page=']");
+}
@@ -0,0 +1,160 @@
+package com.scraper.producer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive per-host token bucket used in place of fixed sleeps between requests.
+ * The rate grows additively while response times stay healthy and is halved on 429/503,
+ * on rising latency or on connection errors. Retry-After pauses the host entirely.
+ * Waiting callers get a future completed by a timer; the limiter itself never sleeps a thread.
+ */
+@Component
+@Slf4j
+public class HostRateLimiter {
+
+    @Value("${scraper.rate-limit.initial-rate:1.0}")
+    private double initialRate;
+
+    @Value("${scraper.rate-limit.min-rate:0.2}")
+    private double minRate;
+
+    @Value("${scraper.rate-limit.max-rate:10.0}")
+    private double maxRate;
+
+    @Value("${scraper.rate-limit.burst:2}")
+    private int burst;
+
+    /** Additive increase per healthy response, in requests/second */
+    @Value("${scraper.rate-limit.increase-step:0.1}")
+    private double increaseStep;
+
+    /** Latency is "rising" when the short-term average exceeds the long-term one by this factor */
+    @Value("${scraper.rate-limit.latency-factor:1.5}")
+    private double latencyFactor;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Reserve a token for the host. The returned future completes once the request may be sent.
+     */
+    public CompletableFuture<Void> acquire(String host) {
+        long delayNanos = bucket(host).reserve();
+        if (delayNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.debug("Rate limiting {}: waiting {} ms", host, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Feed a completed response back so the host's rate can adapt
+     */
+    public void onResponse(String host, int statusCode, Duration latency, Optional<String> retryAfter) {
+        Bucket bucket = bucket(host);
+        if (statusCode == 429 || statusCode == 503) {
+            Duration pause = retryAfter.flatMap(HostRateLimiter::parseRetryAfter).orElse(Duration.ZERO);
+            bucket.backOff(pause);
+            log.warn("Host {} answered {}, backing off to {} req/s (pause {} s)",
+                    host, statusCode, String.format("%.2f", bucket.rate()), pause.toSeconds());
+            return;
+        }
+        bucket.recordLatency(latency.toNanos());
+    }
+
+    /**
+     * Connection failures and timeouts are treated as overload
+     */
+    public void onFailure(String host) {
+        Bucket bucket = bucket(host);
+        bucket.backOff(Duration.ZERO);
+        log.debug("Request to {} failed, backing off to {} req/s", host, String.format("%.2f", bucket.rate()));
+    }
+
+    private Bucket bucket(String host) {
+        return buckets.computeIfAbsent(host != null ? host.toLowerCase() : "", h -> new Bucket());
+    }
+
+    static Optional<Duration> parseRetryAfter(String value) {
+        String v = value.trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(v))));
+        } catch (NumberFormatException ignore) {
+            // Not delta-seconds, try HTTP-date
+        }
+        try {
+            ZonedDateTime until = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration d = Duration.between(ZonedDateTime.now(until.getZone()), until);
+            return Optional.of(d.isNegative() ? Duration.ZERO : d);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private class Bucket {
+        private double rate = initialRate;
+        private double tokens = burst;
+        private long lastRefill = System.nanoTime();
+        private long pausedUntil = lastRefill;
+        private double fastLatency = -1;
+        private double slowLatency = -1;
+
+        /**
+         * Take a token, going into debt if none is left, and return how long the caller must wait
+         */
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            refill(now);
+            tokens -= 1;
+            long wait = tokens >= 0 ? 0 : (long) (-tokens / rate * 1_000_000_000L);
+            if (pausedUntil - now > wait) {
+                wait = pausedUntil - now;
+            }
+            return wait;
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        synchronized void backOff(Duration pause) {
+            refill(System.nanoTime());
+            rate = Math.max(minRate, rate / 2);
+            if (!pause.isZero()) {
+                pausedUntil = Math.max(pausedUntil, System.nanoTime() + pause.toNanos());
+            }
+        }
+
+        synchronized void recordLatency(long latencyNanos) {
+            refill(System.nanoTime());
+            if (fastLatency < 0) {
+                fastLatency = latencyNanos;
+                slowLatency = latencyNanos;
+                return;
+            }
+            fastLatency = 0.3 * latencyNanos + 0.7 * fastLatency;
+            slowLatency = 0.05 * latencyNanos + 0.95 * slowLatency;
+
+            if (fastLatency > slowLatency * latencyFactor) {
+                rate = Math.max(minRate, rate * 0.8);
+            } else {
+                rate = Math.min(maxRate, rate + increaseStep);
+            }
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) / 1_000_000_000.0 * rate);
+            lastRefill = now;
+        }
+    }
+}
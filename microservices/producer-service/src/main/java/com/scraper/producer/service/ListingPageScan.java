@@ -0,0 +1,77 @@
+package com.scraper.producer.service;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single traversal of an eBay listing page that classifies every node the URL collector may need:
+ * item cards of both layouts, item links and pagination links.
+ * The layout fallbacks then work on these lists instead of re-walking the document with select().
+ */
+class ListingPageScan implements NodeVisitor {
+
+    /** Which part of the page the product URLs were taken from */
+    enum Layout { BROWSE_CARDS, SEARCH_ITEMS, ITEM_LINKS, NONE }
+
+    private final List<Element> browseCards = new ArrayList<>();
+    private final List<Element> searchItems = new ArrayList<>();
+    private final List<Element> itemLinks = new ArrayList<>();
+    private final List<Element> nextLinks = new ArrayList<>();
+
+    static ListingPageScan of(Element root) {
+        ListingPageScan scan = new ListingPageScan();
+        NodeTraversor.traverse(scan, root);
+        return scan;
+    }
+
+    @Override
+    public void head(Node node, int depth) {
+        if (!(node instanceof Element el)) return;
+
+        switch (el.normalName()) {
+            case "li" -> {
+                if (el.hasClass("brwrvr__item-card")) {
+                    browseCards.add(el);
+                } else if (el.hasClass("s-item")) {
+                    searchItems.add(el);
+                }
+            }
+            case "a" -> classifyLink(el);
+            default -> { }
+        }
+    }
+
+    private void classifyLink(Element a) {
+        if (!a.hasAttr("href")) return;
+        String href = a.attr("href");
+        if (href.contains("/itm/") || href.contains("/p/")) {
+            itemLinks.add(a);
+        }
+        if (a.attr("rel").equalsIgnoreCase("next")
+                || a.attr("aria-label").equalsIgnoreCase("Next page")
+                || a.hasClass("pagination__next")) {
+            nextLinks.add(a);
+        }
+    }
+
+    List<Element> browseCards() {
+        return browseCards;
+    }
+
+    List<Element> searchItems() {
+        return searchItems;
+    }
+
+    List<Element> itemLinks() {
+        return itemLinks;
+    }
+
+    List<Element> nextLinks() {
+        return nextLinks;
+    }
+}
@@ -1,7 +1,10 @@
 package com.scraper.producer.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.producer.dto.ProductMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -14,6 +17,7 @@ import java.util.List;
 public class MessageProducerService {
     
     private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
     
     @Value("${queue.name}")
     private String queueName;
@@ -31,5 +35,25 @@ public class MessageProducerService {
         urls.forEach(this::sendUrl);
         log.info("Sent {} URLs to queue", urls.size());
     }
+
+    /**
+     * Publish product batches as JSON arrays, in the order the enrichment planner put them
+     */
+    public void sendBatches(List<List<ProductMessage>> batches) {
+        int sent = 0;
+        for (List<ProductMessage> batch : batches) {
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(batch);
+                rabbitTemplate.convertAndSend(queueName, body, message -> {
+                    message.getMessageProperties().setContentType(MessageProperties.CONTENT_TYPE_JSON);
+                    return message;
+                });
+                sent += batch.size();
+            } catch (Exception e) {
+                log.error("Error sending batch of {} products to queue: {}", batch.size(), e.getMessage());
+            }
+        }
+        log.info("Sent {} products in {} batches to queue", sent, batches.size());
+    }
 }
 
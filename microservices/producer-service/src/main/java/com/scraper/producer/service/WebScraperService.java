@@ -1,166 +1,227 @@
 package com.scraper.producer.service;
 
+import com.scraper.producer.dto.ProductInfo;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.scraper.producer.service.ExtractionPatterns.*;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class WebScraperService {
     
     private static final String BASE_URL = "https://www.ebay.com";
-    private static final int TIMEOUT = 30000;
+    
+    private final PageFetcher pageFetcher;
+    private final ListingCrawler listingCrawler;
     
     public List<String> scrapeProductUrls(String startingUrl, int maxPages) {
-        Set<String> productUrls = new HashSet<>();
+        return scrapeProductUrls(startingUrl, maxPages, false);
+    }
+
+    /**
+     * Collect product URLs from listing pages, optionally fetching the pages concurrently on virtual threads
+     */
+    public List<String> scrapeProductUrls(String startingUrl, int maxPages, boolean concurrent) {
+        return new ArrayList<>(scrapeListing(startingUrl, maxPages, concurrent).keySet());
+    }
+
+    /**
+     * Collect products from listing pages, keyed by URL, with whatever the listing cards show about them
+     */
+    public Map<String, ProductInfo> scrapeListing(String startingUrl, int maxPages, boolean concurrent) {
+        if (concurrent) {
+            Map<String, ProductInfo> products = new ConcurrentHashMap<>();
+            listingCrawler.crawl(listingCrawler.seedPages(startingUrl, maxPages), maxPages, pageUrl -> {
+                // Each page collects into its own map so the per-page fallbacks see only that page
+                Map<String, ProductInfo> pageProducts = new LinkedHashMap<>();
+                List<String> nextPages = scrapeListingPage(pageUrl, pageProducts);
+                pageProducts.forEach(products::putIfAbsent);
+                return nextPages;
+            });
+            log.info("Total URLs collected: {}", products.size());
+            return products;
+        }
+
+        Map<String, ProductInfo> products = new LinkedHashMap<>();
         List<String> pagesToVisit = new ArrayList<>();
         pagesToVisit.add(startingUrl);
         int pagesVisited = 0;
         
         while (pagesVisited < pagesToVisit.size() && pagesVisited < maxPages) {
             String currentUrl = pagesToVisit.get(pagesVisited);
-            log.info("Scraping page: {}", currentUrl);
             
             try {
-                // Enhanced browser headers to better mimic a real browser
-                Document doc = Jsoup.connect(currentUrl)
-                        .timeout(TIMEOUT)
-                        .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-                        .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7")
-                        .header("Accept-Language", "en-US,en;q=0.9")
-                        .header("Accept-Encoding", "gzip, deflate, br")
-                        .header("Connection", "keep-alive")
-                        .header("Upgrade-Insecure-Requests", "1")
-                        .header("Sec-Fetch-Dest", "document")
-                        .header("Sec-Fetch-Mode", "navigate")
-                        .header("Sec-Fetch-Site", "none")
-                        .header("Cache-Control", "max-age=0")
-                        .followRedirects(true)
-                        .maxBodySize(10 * 1024 * 1024) // 10MB max
-                        .get();
-                
-                log.info("Page title: {}", doc.title());
-                
-                // Domain-specific handling: eBay listings
-                String host = "";
-                try { host = new URI(currentUrl).getHost(); } catch (Exception ignore) {}
-                if (host != null && host.toLowerCase().contains("ebay")) {
-                    int before = productUrls.size();
-                    
-                    // Try new layout first (brwrvr__item-card)
-                    Elements newItems = doc.select("li.brwrvr__item-card");
-                    log.info("[eBay] li.brwrvr__item-card count: {}", newItems.size());
-                    
-                    if (newItems.size() > 0) {
-                        for (Element item : newItems) {
-                            Element linkEl = item.selectFirst("a.brwrvr__item-card__image-link[href], a.bsig__title__wrapper[href], a[href*='/p/'], a[href*='/itm/']");
-                            if (linkEl == null) continue;
-                            String href = linkEl.attr("href");
-                            if (href == null || href.isEmpty()) continue;
-                            String fullUrl = linkEl.absUrl("href");
-                            if (fullUrl == null || fullUrl.isEmpty()) {
-                                if (href.startsWith("/")) fullUrl = BASE_URL + href; else fullUrl = href;
-                            }
-                            if (fullUrl.contains("/itm/") || fullUrl.contains("/p/")) {
-                                productUrls.add(fullUrl);
-                            }
-                        }
-                    }
-                    
-                    // Fallback to old layout (s-item)
-                    if (productUrls.size() == before) {
-                        Elements items = doc.select("li.s-item");
-                        log.info("[eBay] li.s-item count: {}", items.size());
-                        
-                        for (Element item : items) {
-                            Element linkEl = item.selectFirst("a.s-item__link[href], a[href*='/itm/']");
-                            if (linkEl == null) continue;
-                            String href = linkEl.attr("href");
-                            if (href == null || href.isEmpty()) continue;
-                            String fullUrl = linkEl.absUrl("href");
-                            if (fullUrl == null || fullUrl.isEmpty()) {
-                                if (href.startsWith("/")) fullUrl = BASE_URL + href; else fullUrl = href;
-                            }
-                            if (fullUrl.contains("/itm/") || fullUrl.contains("/p/")) {
-                                productUrls.add(fullUrl);
-                            }
-                        }
-                    }
-                    
-                    // Final fallback: directly scan /itm/ and /p/ links
-                    if (productUrls.size() == before) {
-                        Elements itmLinks = doc.select("a[href*='/itm/'], a[href*='/p/']");
-                        log.info("[eBay] Direct /itm/ and /p/ links found: {}", itmLinks.size());
-                        for (Element linkEl : itmLinks) {
-                            String href = linkEl.attr("href");
-                            if (href == null || href.isEmpty()) continue;
-                            String fullUrl = linkEl.absUrl("href");
-                            if (fullUrl == null || fullUrl.isEmpty()) {
-                                if (href.startsWith("/")) fullUrl = BASE_URL + href; else fullUrl = href;
-                            }
-                            if (fullUrl.contains("/itm/") || fullUrl.contains("/p/")) {
-                                productUrls.add(fullUrl);
-                            }
-                        }
-                    }
-                    
-                    log.info("[eBay] Collected {} product URLs on this page", productUrls.size() - before);
-
-                    // eBay pagination: next page links
-                    Elements nextLinks = doc.select("a[rel=next][href], a[aria-label='Next page'][href], a.pagination__next[href]");
-                    for (Element next : nextLinks) {
-                        String href = next.attr("href");
-                        if (href == null || href.isEmpty()) continue;
-                        String nextUrl = next.absUrl("href");
-                        if (nextUrl == null || nextUrl.isEmpty()) continue;
-                        if (!pagesToVisit.contains(nextUrl)) {
-                            pagesToVisit.add(nextUrl);
-                        }
-                    }
-                    
-                    pagesVisited++;
-                    Thread.sleep(1000);
-                    continue;
-                }
-                
-                // Generic fallback for non-eBay: collect product URLs
-                log.warn("Non-eBay domain detected, using generic extraction");
-                int before = productUrls.size();
-                Elements links = doc.select("a[href]");
-                for (Element a : links) {
-                    String href = a.absUrl("href");
-                    if (href != null && !href.isEmpty()) {
-                        productUrls.add(href);
-                        if (productUrls.size() - before > 100) break; // cap per page
-                    }
-                }
-                log.info("[Generic] Collected {} URLs on this page", productUrls.size() - before);
-
-                // Generic pagination
-                doc.select("a[rel=next][href], a[aria-label='Next'][href], a[aria-label='Next page'][href], a[href*='page=']").forEach(next -> {
-                    String nextUrl = next.absUrl("href");
-                    if (nextUrl != null && !nextUrl.isEmpty() && !pagesToVisit.contains(nextUrl)) {
+                for (String nextUrl : scrapeListingPage(currentUrl, products)) {
+                    if (!pagesToVisit.contains(nextUrl)) {
                         pagesToVisit.add(nextUrl);
                     }
-                });
-                
+                }
                 pagesVisited++;
-                Thread.sleep(1000); // Rate limiting
                 
-            } catch (IOException | InterruptedException e) {
+            } catch (IOException e) {
                 log.error("Error scraping URL {}: {}", currentUrl, e.getMessage(), e);
                 pagesVisited++;
             }
         }
         
-        log.info("Total URLs collected: {}", productUrls.size());
-        return new ArrayList<>(productUrls);
+        log.info("Total URLs collected: {}", products.size());
+        return products;
+    }
+
+    /**
+     * Collect the products of a single listing page and return the pagination links found on it
+     */
+    private List<String> scrapeListingPage(String currentUrl, Map<String, ProductInfo> products) throws IOException {
+        List<String> nextPages = new ArrayList<>();
+        log.info("Scraping page: {}", currentUrl);
+        
+        Document doc = pageFetcher.fetch(currentUrl);
+        
+        log.info("Page title: {}", doc.title());
+        
+        // Domain-specific handling: eBay listings
+        String host = "";
+        try { host = new URI(currentUrl).getHost(); } catch (Exception ignore) {}
+        if (host != null && host.toLowerCase().contains("ebay")) {
+            int before = products.size();
+
+            // One traversal classifies cards, item links and pagination; the fallbacks below reuse it
+            ListingPageScan scan = ListingPageScan.of(doc);
+            ListingPageScan.Layout layout = ListingPageScan.Layout.NONE;
+            log.info("[eBay] li.brwrvr__item-card count: {}, li.s-item count: {}, item links: {}",
+                    scan.browseCards().size(), scan.searchItems().size(), scan.itemLinks().size());
+
+            // Try new layout first (brwrvr__item-card)
+            for (Element item : scan.browseCards()) {
+                addCard(item, item.selectFirst(BROWSE_CARD_LINK), BROWSE_CARD_TITLE, BROWSE_CARD_PRICE,
+                        BROWSE_CARD_CONDITION, BROWSE_CARD_SHIPPING, BROWSE_CARD_IMAGE, products);
+            }
+            if (products.size() > before) {
+                layout = ListingPageScan.Layout.BROWSE_CARDS;
+            }
+
+            // Fallback to old layout (s-item)
+            if (layout == ListingPageScan.Layout.NONE) {
+                for (Element item : scan.searchItems()) {
+                    addCard(item, item.selectFirst(SEARCH_ITEM_LINK), SEARCH_ITEM_TITLE, SEARCH_ITEM_PRICE,
+                            SEARCH_ITEM_CONDITION, SEARCH_ITEM_SHIPPING, SEARCH_ITEM_IMAGE, products);
+                }
+                if (products.size() > before) {
+                    layout = ListingPageScan.Layout.SEARCH_ITEMS;
+                }
+            }
+
+            // Final fallback: directly scan /itm/ and /p/ links
+            if (layout == ListingPageScan.Layout.NONE) {
+                for (Element linkEl : scan.itemLinks()) {
+                    addCard(null, linkEl, null, null, null, null, null, products);
+                }
+                if (products.size() > before) {
+                    layout = ListingPageScan.Layout.ITEM_LINKS;
+                }
+            }
+
+            log.info("[eBay] Collected {} products on this page (layout: {})", products.size() - before, layout);
+
+            // eBay pagination: next page links
+            for (Element next : scan.nextLinks()) {
+                String href = next.attr("href");
+                if (href == null || href.isEmpty()) continue;
+                String nextUrl = next.absUrl("href");
+                if (nextUrl == null || nextUrl.isEmpty()) continue;
+                if (!nextPages.contains(nextUrl)) {
+                    nextPages.add(nextUrl);
+                }
+            }
+            
+            return nextPages;
+        }
+        
+        // Generic fallback for non-eBay: collect product URLs
+        log.warn("Non-eBay domain detected, using generic extraction");
+        int before = products.size();
+        Elements links = doc.select(ANY_LINK);
+        for (Element a : links) {
+            String href = a.absUrl("href");
+            if (href != null && !href.isEmpty()) {
+                String text = a.text().trim();
+                products.putIfAbsent(href, ProductInfo.builder().title(text.isEmpty() ? null : text).build());
+                if (products.size() - before > 100) break; // cap per page
+            }
+        }
+        log.info("[Generic] Collected {} URLs on this page", products.size() - before);
+
+        // Generic pagination
+        doc.select(GENERIC_NEXT_PAGE).forEach(next -> {
+            String nextUrl = next.absUrl("href");
+            if (nextUrl != null && !nextUrl.isEmpty() && !nextPages.contains(nextUrl)) {
+                nextPages.add(nextUrl);
+            }
+        });
+        
+        return nextPages;
+    }
+
+    /**
+     * Add an eBay item with the fields its card shows. Card-less links (item is null) only get a title
+     * from the link text; the selectors of missing fields may be null.
+     */
+    private void addCard(Element item, Element linkEl, Evaluator title, Evaluator price, Evaluator condition,
+                         Evaluator shipping, Evaluator image, Map<String, ProductInfo> products) {
+        if (linkEl == null) return;
+        String href = linkEl.attr("href");
+        if (href == null || href.isEmpty()) return;
+        String fullUrl = linkEl.absUrl("href");
+        if (fullUrl == null || fullUrl.isEmpty()) {
+            if (href.startsWith("/")) fullUrl = BASE_URL + href; else fullUrl = href;
+        }
+        if (!fullUrl.contains("/itm/") && !fullUrl.contains("/p/")) return;
+        if (products.containsKey(fullUrl)) return;
+
+        String titleText = textOf(item, title);
+        if (titleText == null && !linkEl.text().isBlank()) titleText = linkEl.text().trim();
+
+        Map<String, String> adInfo = new HashMap<>();
+        java.util.regex.Matcher m = EBAY_ITEM_ID.matcher(fullUrl);
+        if (m.find()) adInfo.put("Item ID", m.group(1));
+        String conditionText = textOf(item, condition);
+        if (conditionText != null) adInfo.put("Condition", conditionText);
+        String shippingText = textOf(item, shipping);
+        if (shippingText != null) adInfo.put("Shipping", shippingText);
+
+        Map<String, String> generalInfo = new HashMap<>();
+        Element imgEl = item != null && image != null ? item.selectFirst(image) : null;
+        if (imgEl != null) {
+            String imageUrl = imgEl.attr("data-originalsrc");
+            if (imageUrl.isEmpty()) imageUrl = imgEl.attr("src");
+            if (!imageUrl.isEmpty()) generalInfo.put("Image URL", imageUrl);
+        }
+
+        products.put(fullUrl, ProductInfo.builder()
+                .title(titleText)
+                .price(textOf(item, price))
+                .adInfo(adInfo)
+                .generalInfo(generalInfo)
+                .build());
+    }
+
+    private static String textOf(Element item, Evaluator selector) {
+        if (item == null || selector == null) return null;
+        Element el = item.selectFirst(selector);
+        if (el == null) return null;
+        String text = el.text().trim();
+        return text.isEmpty() ? null : text;
     }
 }